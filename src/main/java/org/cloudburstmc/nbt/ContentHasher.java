@@ -0,0 +1,98 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataOutput;
+
+import java.io.IOException;
+
+/**
+ * A big-endian output which hashes the bytes written to it instead of keeping them, see
+ * {@link NbtUtils#contentHash(Object)}.
+ * <p>
+ * The bytes are consumed in little-endian 64-bit words with the mixing steps of xxHash64, whenever the array runs out of
+ * room. Bulk writes are fed in chunks of {@link #CHUNK_SIZE} bytes, so large arrays are never copied as a whole. The
+ * hash only depends on the bytes, not on how they were split between writes.
+ */
+final class ContentHasher extends ByteArrayDataOutput {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+    private static final int CHUNK_SIZE = 256;
+
+    private long hash = PRIME_5;
+    private long length;
+
+    ContentHasher() {
+        super(2 * CHUNK_SIZE);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException("offset=" + off + ", length=" + len + ", array=" + b.length);
+        }
+        for (int end = off + len; off < end; off += CHUNK_SIZE) {
+            super.write(b, off, Math.min(CHUNK_SIZE, end - off));
+        }
+    }
+
+    @Override
+    public void writeInts(int[] array, int offset, int length) throws IOException {
+        for (int end = offset + length; offset < end; offset += CHUNK_SIZE / 4) {
+            super.writeInts(array, offset, Math.min(CHUNK_SIZE / 4, end - offset));
+        }
+    }
+
+    @Override
+    public void writeLongs(long[] array, int offset, int length) throws IOException {
+        for (int end = offset + length; offset < end; offset += CHUNK_SIZE / 8) {
+            super.writeLongs(array, offset, Math.min(CHUNK_SIZE / 8, end - offset));
+        }
+    }
+
+    @Override
+    protected void makeRoom(int size) {
+        this.consumeWords();
+        if (size > this.array.length - this.position) {
+            super.makeRoom(size);
+        }
+    }
+
+    long finish() {
+        this.consumeWords();
+        byte[] array = this.array;
+        long hash = this.hash;
+        for (int i = 0; i < this.position; i++) {
+            hash ^= (array[i] & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+        hash ^= this.length + this.position;
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    /**
+     * Mixes in every complete word written so far and moves the remaining bytes to the start of the array.
+     */
+    private void consumeWords() {
+        byte[] array = this.array;
+        int end = this.position & ~7;
+        long hash = this.hash;
+        for (int i = 0; i < end; i += 8) {
+            long word = (array[i] & 0xFFL) | (array[i + 1] & 0xFFL) << 8 | (array[i + 2] & 0xFFL) << 16 |
+                    (array[i + 3] & 0xFFL) << 24 | (array[i + 4] & 0xFFL) << 32 | (array[i + 5] & 0xFFL) << 40 |
+                    (array[i + 6] & 0xFFL) << 48 | (array[i + 7] & 0xFFL) << 56;
+            hash ^= Long.rotateLeft(word * PRIME_2, 31) * PRIME_1;
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        this.hash = hash;
+        this.length += end;
+        System.arraycopy(array, end, array, 0, this.position - end);
+        this.position -= end;
+    }
+}
@@ -0,0 +1,29 @@
+package org.cloudburstmc.nbt;
+
+/**
+ * The encoded payloads of a compound or list which memoizes them, one per format.
+ */
+final class EncodedForms {
+    // Replaced on every update, so that the arrays are safely published through the volatile write
+    private volatile byte[][] forms = new byte[NbtSizes.FORMAT_COUNT][];
+    private int depth; // The same for every format, published by the write of the forms
+
+    byte[] get(NbtFormat format) {
+        return this.forms[format.ordinal()];
+    }
+
+    /**
+     * Returns the depth the payloads are nested to, which a writer needs at least to write them. Only valid once a
+     * payload has been returned by {@link #get(NbtFormat)}.
+     */
+    int depth() {
+        return this.depth;
+    }
+
+    void put(NbtFormat format, byte[] encoded, int depth) {
+        byte[][] forms = this.forms.clone();
+        forms[format.ordinal()] = encoded;
+        this.depth = depth;
+        this.forms = forms;
+    }
+}
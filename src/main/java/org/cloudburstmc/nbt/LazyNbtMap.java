@@ -0,0 +1,78 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataInput;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * A {@link NbtMap} which keeps the encoded compound and only decodes its entries when they are first accessed.
+ * Nested compounds are lazy as well. Since the map is immutable, it can always be written back in its original format
+ * by copying the encoded bytes.
+ * <p>
+ * Creating the map only walks the structure of the compound. Its strings are decoded and its entries are charged to
+ * the read limits when the map is first accessed, so a malformed or oversized compound fails with an
+ * {@link UncheckedIOException} from that access instead. The compounds of one lazily read tag share their read limit
+ * counters, so the limits hold for the tag as a whole.
+ *
+ * @see NBTInputStream#readLazyTag()
+ */
+final class LazyNbtMap extends NbtMap {
+    private final byte[] array;
+    private final int offset;
+    private final int length;
+    private final NbtFormat format;
+    private final int maxDepth;
+    private final NBTInputStream settings; // The reader whose settings and read limits decode this map
+    private volatile Map<String, Object> decoded;
+
+    /**
+     * @param settings a reader of the same array, which is copied to decode the map
+     */
+    LazyNbtMap(byte[] array, int offset, int length, NbtFormat format, int maxDepth, NBTInputStream settings) {
+        super(null);
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+        this.format = format;
+        this.maxDepth = maxDepth;
+        this.settings = settings;
+    }
+
+    @Override
+    Map<String, Object> map() {
+        Map<String, Object> map = this.decoded;
+        if (map == null) {
+            ByteArrayDataInput input = ByteArrayDataInput.create(this.format, this.array, this.offset, this.length);
+            try {
+                map = this.settings.copy(input).readLazyCompound(this.maxDepth);
+            } catch (IOException e) {
+                // Only the structure was checked when this map was created, so malformed strings and exceeded read
+                // limits are found now
+                throw new UncheckedIOException("Unable to decode lazy compound", e);
+            }
+            this.decoded = map;
+        }
+        return map;
+    }
+
+    @Override
+    long serializedSize(NbtFormat format) {
+        return format == this.format ? this.length : super.serializedSize(format);
+    }
+
+    /**
+     * Writes the encoded compound if the output uses the same format.
+     *
+     * @return whether the compound was written
+     */
+    boolean writeTo(DataOutput output, NbtFormat format) throws IOException {
+        if (format != this.format) {
+            return false;
+        }
+        output.write(this.array, this.offset, this.length);
+        return true;
+    }
+}
@@ -1,36 +1,90 @@
 package org.cloudburstmc.nbt;
 
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataInput;
 import org.cloudburstmc.nbt.util.stream.LimitedDataInput;
+import org.cloudburstmc.nbt.util.stream.NbtDataInput;
 
 import java.io.Closeable;
 import java.io.DataInput;
+import java.io.EOFException;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
 
 import static org.cloudburstmc.nbt.NbtUtils.MAX_DEPTH;
 import static org.cloudburstmc.nbt.NbtUtils.MAX_READ_SIZE;
+import static org.cloudburstmc.nbt.NbtUtils.MAX_RECURSIVE_DEPTH;
 
 public class NBTInputStream implements Closeable {
-    private final DataInput input;
+    private static final int COMPOUND_SIZE_HINTS = 16;
+    static final int MAX_PREALLOCATED_ELEMENTS = 4096;
+    private static final int MAX_PREALLOCATED_ARRAY = 1 << 16;
+    private static final int TYPE_COUNT = NbtType.Enum.values().length;
+    private static final int MIN_PARALLEL_ELEMENTS = 256;
+    private static final int MIN_PARALLEL_CHUNK = 32;
+    private static final int ARRAY_ELEMENTS = 0;
+    private static final int LIST_ENTRIES = 1;
+    private static final int COMPOUND_ENTRIES = 2;
+
+    private NbtDataInput input;
+    private final long maxReadSize;
     private final boolean internKeys;
+    private final NbtKeyDictionary keyDictionary;
     private final boolean internValues;
+    private final int[] compoundSizeHints = new int[COMPOUND_SIZE_HINTS];
+    private NbtReadLimits readLimits = NbtReadLimits.UNLIMITED;
+    private ForkJoinPool decodePool;
+    private long arrayElements;
+    private long listEntries;
+    private long compoundEntries;
+    // Charged instead of the counters above while decoding a range in parallel or the compounds of a lazy tag
+    private AtomicLongArray sharedCounters;
     private boolean closed = false;
+    private boolean lazy = false;
 
     public NBTInputStream(DataInput input, boolean internKeys, boolean internValues) {
         this(input, internKeys, internValues, MAX_READ_SIZE);
     }
 
     public NBTInputStream(DataInput input, boolean internKeys, boolean internValues, long maxReadSize) {
+        this(input, internKeys, null, internValues, maxReadSize);
+    }
+
+    /**
+     * Creates a reader which looks compound keys up in the given dictionary instead of decoding them every time.
+     */
+    public NBTInputStream(DataInput input, NbtKeyDictionary keyDictionary, boolean internValues) {
+        this(input, keyDictionary, internValues, MAX_READ_SIZE);
+    }
+
+    public NBTInputStream(DataInput input, NbtKeyDictionary keyDictionary, boolean internValues, long maxReadSize) {
+        this(input, false, Objects.requireNonNull(keyDictionary, "keyDictionary"), internValues, maxReadSize);
+    }
+
+    private NBTInputStream(DataInput input, boolean internKeys, NbtKeyDictionary keyDictionary, boolean internValues,
+                           long maxReadSize) {
         Objects.requireNonNull(input, "input");
-        if (input instanceof LimitedDataInput) {
-            this.input = input;
+        if (input instanceof NbtDataInput) {
+            this.input = (NbtDataInput) input;
         } else {
             this.input = new LimitedDataInput(input, maxReadSize);
         }
+        this.maxReadSize = maxReadSize;
         this.internKeys = internKeys;
+        this.keyDictionary = keyDictionary;
         this.internValues = internValues;
     }
 
@@ -42,11 +96,188 @@ public class NBTInputStream implements Closeable {
         this(input, false, false, maxReadSize);
     }
 
+    /**
+     * Starts reading from a new input, as if this reader had just been created with it. The key settings, read limits
+     * and compound size hints are kept, while the read limit counters start from zero again.
+     * <p>
+     * An input which is not a {@link NbtDataInput} is wrapped like in the constructor, reusing the current wrapper if
+     * there is one.
+     */
+    public void reset(DataInput input) {
+        Objects.requireNonNull(input, "input");
+        if (input instanceof NbtDataInput) {
+            this.input = (NbtDataInput) input;
+        } else if (this.input.getClass() == LimitedDataInput.class) {
+            ((LimitedDataInput) this.input).reset(input);
+        } else {
+            this.input = new LimitedDataInput(input, this.maxReadSize);
+        }
+        this.arrayElements = 0;
+        this.listEntries = 0;
+        this.compoundEntries = 0;
+        this.closed = false;
+        this.lazy = false;
+    }
+
+    public NbtReadLimits getReadLimits() {
+        return readLimits;
+    }
+
+    /**
+     * Sets the limits for all values this reader decodes from now on. Values which were already decoded count
+     * towards the new limits as well.
+     */
+    public void setReadLimits(NbtReadLimits readLimits) {
+        this.readLimits = Objects.requireNonNull(readLimits, "readLimits");
+    }
+
+    public ForkJoinPool getDecodePool() {
+        return decodePool;
+    }
+
+    /**
+     * Decodes large lists of compounds on the given pool when this reader is backed by a {@link ByteArrayDataInput}.
+     * The list is scanned once to find where its elements start, then ranges of elements are decoded in parallel.
+     * Inputs which are read from a stream are always decoded sequentially.
+     *
+     * @param decodePool the pool to decode with, or {@code null} to decode sequentially, which is the default
+     */
+    public void setDecodePool(ForkJoinPool decodePool) {
+        this.decodePool = decodePool;
+    }
+
     public Object readTag() throws IOException {
         return readTag(MAX_DEPTH);
     }
 
     public Object readTag(int maxDepth) throws IOException {
+        return readTag(maxDepth, maxDepth > MAX_RECURSIVE_DEPTH);
+    }
+
+    Object readTag(int maxDepth, boolean iterative) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+        return readNamedTag(input.readUnsignedByte(), maxDepth, iterative);
+    }
+
+    private Object readNamedTag(int typeId, int maxDepth, boolean iterative) throws IOException {
+        NbtType<?> type = NbtType.byId(typeId);
+        input.readUTF(); // Root tag name
+
+        return iterative ? deserializeIterative(type, maxDepth) : deserialize(type, maxDepth);
+    }
+
+    /**
+     * Returns an iterator over the named root tags which follow each other until the end of the input. Every tag is
+     * checked against the read limits and the maximum read size on its own. Read errors are thrown as
+     * {@link UncheckedIOException}.
+     */
+    public Iterator<Object> tagIterator() {
+        return tagIterator(MAX_DEPTH);
+    }
+
+    public Iterator<Object> tagIterator(int maxDepth) {
+        return Spliterators.iterator(tagSpliterator(maxDepth));
+    }
+
+    /**
+     * Like {@link #tagIterator()}, but a reader backed by a {@link ByteArrayDataInput} can also be split at tag
+     * boundaries to decode the tags in parallel. Each split off part is decoded by a new reader with the same settings.
+     */
+    public Spliterator<Object> tagSpliterator() {
+        return tagSpliterator(MAX_DEPTH);
+    }
+
+    public Spliterator<Object> tagSpliterator(int maxDepth) {
+        return new NbtTagSpliterator(this, maxDepth);
+    }
+
+    /**
+     * Reads the next named root tag, unless the input has ended.
+     *
+     * @return {@code false} if the input ended before the next tag
+     */
+    boolean readNextTag(int maxDepth, Consumer<Object> action) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+        if (input instanceof LimitedDataInput) {
+            ((LimitedDataInput) input).resetReadSize();
+        }
+        int typeId;
+        try {
+            typeId = input.readUnsignedByte();
+        } catch (EOFException e) {
+            return false; // Ended cleanly between two tags
+        }
+        this.arrayElements = 0;
+        this.listEntries = 0;
+        this.compoundEntries = 0;
+        action.accept(readNamedTag(typeId, maxDepth, maxDepth > MAX_RECURSIVE_DEPTH));
+        return true;
+    }
+
+    NbtDataInput input() {
+        return input;
+    }
+
+    /**
+     * Creates a reader with the same settings as this one, which charges the same shared read limit counters.
+     */
+    NBTInputStream copy(DataInput input) {
+        NBTInputStream reader = new NBTInputStream(input, this.internKeys, this.keyDictionary, this.internValues,
+                this.maxReadSize);
+        reader.readLimits = this.readLimits;
+        reader.sharedCounters = this.sharedCounters;
+        return reader;
+    }
+
+    /**
+     * Reads a named root tag from a byte array backed input, but only decodes compounds once they are accessed.
+     * The encoded tag is copied, so the source array may be reused afterwards. Lazy compounds are written back by
+     * copying their encoded bytes when the writer uses the same format.
+     *
+     * @throws UnsupportedOperationException if this reader is not backed by a {@link ByteArrayDataInput}
+     */
+    public Object readLazyTag() throws IOException {
+        return readLazyTag(MAX_DEPTH);
+    }
+
+    public Object readLazyTag(int maxDepth) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+        if (!(input instanceof ByteArrayDataInput)) {
+            throw new UnsupportedOperationException("Lazy reads require a byte array backed input");
+        }
+        ByteArrayDataInput input = (ByteArrayDataInput) this.input;
+        int typeId = input.readUnsignedByte();
+        NbtType<?> type = NbtType.byId(typeId);
+        input.readUTF(); // Root tag name
+
+        int start = input.position();
+        skip(input, type, maxDepth);
+        byte[] bytes = Arrays.copyOfRange(input.array(), start, input.position());
+        NBTInputStream reader = this.copy(ByteArrayDataInput.create(input.format(), bytes, 0, bytes.length));
+        // Every lazy compound of the tag is decoded by a copy of this reader, so the limits hold for the whole tag
+        reader.sharedCounters = new AtomicLongArray(COMPOUND_ENTRIES + 1);
+        if (type == NbtType.COMPOUND) {
+            return new LazyNbtMap(bytes, 0, bytes.length, input.format(), maxDepth, reader);
+        }
+        reader.lazy = true;
+        return reader.deserialize(type, maxDepth);
+    }
+
+    /**
+     * Reads a named root tag and reports its contents to the given visitor instead of building a tree.
+     */
+    public void readTag(NbtVisitor visitor) throws IOException {
+        readTag(visitor, MAX_DEPTH);
+    }
+
+    public void readTag(NbtVisitor visitor, int maxDepth) throws IOException {
+        Objects.requireNonNull(visitor, "visitor");
         if (closed) {
             throw new IllegalStateException("Trying to read from a closed reader!");
         }
@@ -54,7 +285,33 @@ public class NBTInputStream implements Closeable {
         NbtType<?> type = NbtType.byId(typeId);
         input.readUTF(); // Root tag name
 
-        return deserialize(type, maxDepth);
+        accept(type, visitor, maxDepth);
+    }
+
+    /**
+     * Reads a named root tag, but only materializes the entries included by the projection.
+     */
+    public Object readTag(NbtProjection projection) throws IOException {
+        return readTag(projection, MAX_DEPTH);
+    }
+
+    public Object readTag(NbtProjection projection, int maxDepth) throws IOException {
+        NbtTreeBuilder builder = Objects.requireNonNull(projection, "projection").createBuilder();
+        readTag(builder, maxDepth);
+        return builder.getResult();
+    }
+
+    public void readValue(NbtType<?> type, NbtVisitor visitor) throws IOException {
+        readValue(type, visitor, MAX_DEPTH);
+    }
+
+    public void readValue(NbtType<?> type, NbtVisitor visitor, int maxDepth) throws IOException {
+        Objects.requireNonNull(visitor, "visitor");
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+
+        accept(type, visitor, maxDepth);
     }
 
     public <T> T readValue(NbtType<T> type) throws IOException {
@@ -67,15 +324,99 @@ public class NBTInputStream implements Closeable {
             throw new IllegalStateException("Trying to read from a closed reader!");
         }
 
+        if (maxDepth > MAX_RECURSIVE_DEPTH) {
+            return (T) deserializeIterative(type, maxDepth);
+        }
         return (T) deserialize(type, maxDepth);
     }
 
+    /**
+     * Advances past a named root tag without decoding it.
+     */
+    public void skipTag() throws IOException {
+        skipTag(MAX_DEPTH);
+    }
+
+    public void skipTag(int maxDepth) throws IOException {
+        this.walkTag(maxDepth, false);
+    }
+
+    /**
+     * Advances past an unnamed value of the given type without decoding it.
+     */
+    public void skipValue(NbtType<?> type) throws IOException {
+        skipValue(type, MAX_DEPTH);
+    }
+
+    public void skipValue(NbtType<?> type, int maxDepth) throws IOException {
+        Objects.requireNonNull(type, "type");
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+        skip(input, type, maxDepth);
+    }
+
+    /**
+     * Advances past a named root tag like {@link #skipTag()}, but rejects anything {@link #readTag()} would only
+     * tolerate: unknown type ids, negative array and list lengths and non-empty lists of {@link NbtType#END}.
+     * Strings are not decoded, so they are not checked for malformed UTF-8.
+     *
+     * @throws IllegalArgumentException if the tag is malformed or too deeply nested
+     */
+    public void validate() throws IOException {
+        validate(MAX_DEPTH);
+    }
+
+    public void validate(int maxDepth) throws IOException {
+        this.walkTag(maxDepth, true);
+    }
+
+    private void walkTag(int maxDepth, boolean strict) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+        NbtType<?> type = readType(input, strict);
+        input.skipUTF(); // Root tag name
+        skip(input, type, maxDepth, strict);
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     private Object deserialize(NbtType<?> type, int maxDepth) throws IOException {
         if (maxDepth < 0) {
             throw new IllegalArgumentException("NBT compound is too deeply nested");
         }
 
+        switch (type.getEnum()) {
+            case COMPOUND:
+                if (this.lazy) {
+                    return this.readLazyMap(maxDepth);
+                }
+                return new NbtMap(this.readCompound(maxDepth));
+            case LIST:
+                int typeId = input.readUnsignedByte();
+                NbtType<?> listType = NbtType.byId(typeId);
+                int listLength = this.readListLength(listType);
+                Object[] elements = this.newElements(listType, listLength);
+                if (this.isParallel(listType, listLength)) {
+                    this.readElementsParallel(elements, maxDepth - 1);
+                    return NbtList.wrap((NbtType) listType, elements);
+                }
+                for (int i = 0; i < listLength; i++) {
+                    if (i == elements.length) {
+                        elements = this.growElements(elements, listLength);
+                    }
+                    elements[i] = deserialize(listType, maxDepth - 1);
+                }
+                return NbtList.wrap((NbtType) listType, elements);
+            default:
+                return this.readScalar(type);
+        }
+    }
+
+    /**
+     * Reads any value which is not a compound or a list.
+     */
+    private Object readScalar(NbtType<?> type) throws IOException {
         switch (type.getEnum()) {
             case END:
                 return null;
@@ -100,55 +441,512 @@ public class NBTInputStream implements Closeable {
             case DOUBLE:
                 return input.readDouble();
             case BYTE_ARRAY:
-                int arraySize = input.readInt();
-                byte[] bytes = new byte[arraySize];
-                input.readFully(bytes);
-                return bytes;
+                return this.readByteArray();
             case STRING:
-                if (this.internValues) {
-                    return input.readUTF().intern();
+                return this.readString();
+            case INT_ARRAY:
+                return this.readIntArray();
+            case LONG_ARRAY:
+                return this.readLongArray();
+        }
+
+        throw new IllegalArgumentException("Unknown type " + type);
+    }
+
+    /**
+     * Reads the same tree as {@link #deserialize(NbtType, int)}, but keeps the open compounds and lists on an explicit
+     * stack, so that the nesting depth is not limited by the size of the thread's stack.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object deserializeIterative(NbtType<?> type, int maxDepth) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("NBT compound is too deeply nested");
+        }
+        if (!this.isOpenedBy(type)) {
+            return type == NbtType.COMPOUND ? this.readLazyMap(maxDepth) : this.readScalar(type);
+        }
+
+        Deque<DecodeFrame> stack = new ArrayDeque<>();
+        DecodeFrame frame = this.openFrame(type, maxDepth);
+        while (true) {
+            Object value;
+            NbtType<?> childType;
+            if (frame.map != null) {
+                NbtType<?> entryType = NbtType.byId(input.readUnsignedByte());
+                if (entryType == NbtType.END) {
+                    childType = null;
+                    this.recordCompoundSize(frame.depth, frame.map.size());
+                    value = new NbtMap(frame.map);
                 } else {
-                    return input.readUTF();
+                    this.chargeCompoundEntry();
+                    childType = entryType;
+                    frame.key = this.readKey();
+                    value = null;
                 }
+            } else if (frame.size < frame.length) {
+                childType = frame.listType;
+                value = null;
+            } else {
+                childType = null;
+                value = NbtList.wrap((NbtType) frame.listType, frame.elements);
+            }
+
+            if (childType == null) {
+                // The current frame is complete
+                if (stack.isEmpty()) {
+                    return value;
+                }
+                frame = stack.pop();
+                frame.add(value);
+                continue;
+            }
+
+            if (frame.depth - 1 < 0) {
+                throw new IllegalArgumentException("NBT compound is too deeply nested");
+            }
+            if (this.isOpenedBy(childType)) {
+                stack.push(frame);
+                frame = this.openFrame(childType, frame.depth - 1);
+            } else if (childType == NbtType.COMPOUND) {
+                frame.add(this.readLazyMap(frame.depth - 1));
+            } else {
+                frame.add(this.readScalar(childType));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the iterative decoder opens a frame for values of this type.
+     */
+    private boolean isOpenedBy(NbtType<?> type) {
+        return type == NbtType.LIST || type == NbtType.COMPOUND && !this.lazy;
+    }
+
+    private DecodeFrame openFrame(NbtType<?> type, int depth) throws IOException {
+        if (type == NbtType.COMPOUND) {
+            return new DecodeFrame(depth, this.newCompound(depth), null, null, 0);
+        }
+        NbtType<?> listType = NbtType.byId(input.readUnsignedByte());
+        int listLength = this.readListLength(listType);
+        DecodeFrame frame = new DecodeFrame(depth, null, listType, this.newElements(listType, listLength), listLength);
+        if (this.isParallel(listType, listLength)) {
+            if (depth - 1 < 0) {
+                throw new IllegalArgumentException("NBT compound is too deeply nested");
+            }
+            this.readElementsParallel(frame.elements, depth - 1);
+            frame.size = listLength; // Nothing left to read, the frame completes right away
+        }
+        return frame;
+    }
+
+    private boolean isParallel(NbtType<?> listType, int length) {
+        return this.decodePool != null && listType == NbtType.COMPOUND && length >= MIN_PARALLEL_ELEMENTS &&
+                !this.lazy && input instanceof ByteArrayDataInput;
+    }
+
+    /**
+     * Decodes the compounds of a list on the decode pool. Each range of elements is decoded by a copy of this reader,
+     * and all of them charge the same read limit counters as they go, so the limits hold for the list as a whole.
+     */
+    private void readElementsParallel(Object[] elements, int maxDepth) throws IOException {
+        ByteArrayDataInput input = (ByteArrayDataInput) this.input;
+        int[] offsets = new int[elements.length + 1];
+        for (int i = 0; i < elements.length; i++) {
+            offsets[i] = input.position();
+            skip(input, NbtType.COMPOUND, maxDepth);
+        }
+        offsets[elements.length] = input.position();
+
+        int chunk = Math.max(MIN_PARALLEL_CHUNK, elements.length / (this.decodePool.getParallelism() * 4));
+        AtomicLongArray counters = new AtomicLongArray(new long[]{this.arrayElements, this.listEntries, this.compoundEntries});
+        try {
+            this.decodePool.invoke(new ElementDecoder(input, offsets, elements, 0, elements.length, maxDepth, chunk,
+                    counters));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.arrayElements = counters.get(ARRAY_ELEMENTS);
+        this.listEntries = counters.get(LIST_ENTRIES);
+        this.compoundEntries = counters.get(COMPOUND_ENTRIES);
+    }
+
+    private LinkedHashMap<String, Object> readCompound(int maxDepth) throws IOException {
+        LinkedHashMap<String, Object> map = this.newCompound(maxDepth);
+        NbtType<?> nbtType;
+        while ((nbtType = NbtType.byId(input.readUnsignedByte())) != NbtType.END) {
+            this.chargeCompoundEntry();
+            String name = this.readKey();
+            map.put(name, deserialize(nbtType, maxDepth - 1));
+        }
+        this.recordCompoundSize(maxDepth, map.size());
+        return map;
+    }
+
+    /**
+     * Creates a map sized for the number of entries the last compound at the same depth had.
+     */
+    private LinkedHashMap<String, Object> newCompound(int maxDepth) {
+        int hint = this.compoundSizeHints[maxDepth & (COMPOUND_SIZE_HINTS - 1)];
+        return new LinkedHashMap<>(hint == 0 ? 16 : (int) (hint / 0.75f) + 1);
+    }
+
+    private void recordCompoundSize(int maxDepth, int size) {
+        this.compoundSizeHints[maxDepth & (COMPOUND_SIZE_HINTS - 1)] = Math.min(size, MAX_PREALLOCATED_ELEMENTS);
+    }
+
+    /**
+     * Allocates the backing array of a list. Streams cannot tell whether the list really has that many elements, so
+     * large lists start out smaller and grow as elements are actually read.
+     */
+    private Object[] newElements(NbtType<?> type, int length) {
+        int capacity = input instanceof ByteArrayDataInput ? length : Math.min(length, MAX_PREALLOCATED_ELEMENTS);
+        return (Object[]) Array.newInstance(type.getTagClass(), capacity);
+    }
+
+    private Object[] growElements(Object[] elements, int length) {
+        return Arrays.copyOf(elements, grow(elements.length, length));
+    }
+
+    private static int grow(int capacity, int length) {
+        return (int) Math.min(length, capacity * 2L);
+    }
+
+    /**
+     * Reads the length of a list and charges it to the read limits. Lists of {@link NbtType#END} have no payload, so
+     * they are always read as empty, and negative lengths are read as empty like before.
+     */
+    private int readListLength(NbtType<?> listType) throws IOException {
+        int length = input.readInt();
+        if (length <= 0 || listType == NbtType.END) {
+            return 0;
+        }
+        this.listEntries = this.charge(LIST_ENTRIES, this.listEntries, length, this.readLimits.getMaxListEntries(), "List entries");
+        checkRemaining(input, length); // Every element takes at least one byte
+        return length;
+    }
+
+    private int readArrayLength() throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid array length " + length);
+        }
+        this.arrayElements = this.charge(ARRAY_ELEMENTS, this.arrayElements, length, this.readLimits.getMaxArrayElements(),
+                "Array elements");
+        checkRemaining(input, length); // Every element takes at least one byte, even as a VarInt
+        return length;
+    }
+
+    private void chargeCompoundEntry() throws IOException {
+        this.compoundEntries = this.charge(COMPOUND_ENTRIES, this.compoundEntries, 1,
+                this.readLimits.getMaxCompoundEntries(), "Compound entries");
+    }
+
+    /**
+     * Charges the local counter, or the shared one at the given index while decoding a range in parallel.
+     */
+    private long charge(int counter, long used, long amount, long limit, String name) throws IOException {
+        if (this.sharedCounters == null) {
+            return charge(used, amount, limit, name);
+        }
+        long total = this.sharedCounters.addAndGet(counter, amount);
+        charge(total - amount, amount, limit, name);
+        return used;
+    }
+
+    static long charge(long used, long amount, long limit, String name) throws IOException {
+        long total = used + amount;
+        if (limit > 0 && total > limit) {
+            throw new IOException(name + " exceeded limit: read=" + total + ", limit=" + limit);
+        }
+        return total;
+    }
+
+    /**
+     * Fails early if a byte array backed input does not have the given number of bytes left.
+     */
+    static void checkRemaining(DataInput input, long size) throws EOFException {
+        if (input instanceof ByteArrayDataInput) {
+            int remaining = ((ByteArrayDataInput) input).remaining();
+            if (size > remaining) {
+                throw new EOFException("Tried to read " + size + " bytes, but only " + remaining + " are remaining");
+            }
+        }
+    }
+
+    /**
+     * Returns how many elements of an array to allocate before reading it. Streams cannot tell whether the array is
+     * really that long, so large arrays are read in steps which double the array each time.
+     */
+    private static int preallocate(DataInput input, int length) {
+        return input instanceof ByteArrayDataInput ? length : Math.min(length, MAX_PREALLOCATED_ARRAY);
+    }
+
+    private NbtMap readLazyMap(int maxDepth) throws IOException {
+        ByteArrayDataInput input = (ByteArrayDataInput) this.input;
+        int start = input.position();
+        skip(input, NbtType.COMPOUND, maxDepth);
+        return new LazyNbtMap(input.array(), start, input.position() - start, input.format(), maxDepth, this);
+    }
+
+    Map<String, Object> readLazyCompound(int maxDepth) throws IOException {
+        this.lazy = true;
+        return this.readCompound(maxDepth);
+    }
+
+    private void accept(NbtType<?> type, NbtVisitor visitor, int maxDepth) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("NBT compound is too deeply nested");
+        }
+
+        switch (type.getEnum()) {
+            case END:
+                break;
+            case BYTE:
+                visitor.visitByte(input.readByte());
+                break;
+            case SHORT:
+                visitor.visitShort(input.readShort());
+                break;
+            case INT:
+                visitor.visitInt(input.readInt());
+                break;
+            case LONG:
+                visitor.visitLong(input.readLong());
+                break;
+            case FLOAT:
+                visitor.visitFloat(input.readFloat());
+                break;
+            case DOUBLE:
+                visitor.visitDouble(input.readDouble());
+                break;
+            case BYTE_ARRAY:
+                visitor.visitByteArray(this.readByteArray());
+                break;
+            case STRING:
+                visitor.visitString(this.readString());
+                break;
             case COMPOUND:
-                LinkedHashMap<String, Object> map = new LinkedHashMap<>();
-                NbtType<?> nbtType;
-                while ((nbtType = NbtType.byId(input.readUnsignedByte())) != NbtType.END) {
-                    String name;
-                    if (this.internKeys) {
-                        name = input.readUTF().intern();
+                visitor.visitCompoundStart();
+                NbtType<?> entryType;
+                while ((entryType = NbtType.byId(input.readUnsignedByte())) != NbtType.END) {
+                    this.chargeCompoundEntry();
+                    String name = this.readKey();
+                    if (visitor.visitCompoundEntry(name, entryType) == NbtVisitor.Result.SKIP) {
+                        skip(input, entryType, maxDepth - 1);
                     } else {
-                        name = input.readUTF();
+                        accept(entryType, visitor, maxDepth - 1);
                     }
-                    map.put(name, deserialize(nbtType, maxDepth - 1));
                 }
-                return new NbtMap(map);
+                visitor.visitCompoundEnd();
+                break;
             case LIST:
-                int typeId = input.readUnsignedByte();
-                NbtType<?> listType = NbtType.byId(typeId);
-                List<Object> list = new ArrayList<>();
-                int listLength = input.readInt();
-                for (int i = 0; i < listLength; i++) {
-                    list.add(deserialize(listType, maxDepth - 1));
+                NbtType<?> listType = NbtType.byId(input.readUnsignedByte());
+                int listLength = this.readListLength(listType);
+                if (visitor.visitListStart(listType, listLength) == NbtVisitor.Result.SKIP) {
+                    skipElements(input, listType, listLength, maxDepth - 1);
+                } else {
+                    for (int i = 0; i < listLength; i++) {
+                        accept(listType, visitor, maxDepth - 1);
+                    }
+                    visitor.visitListEnd();
                 }
-                return new NbtList(listType, list);
+                break;
             case INT_ARRAY:
-                arraySize = input.readInt();
-                int[] ints = new int[arraySize];
-                for (int i = 0; i < arraySize; i++) {
-                    ints[i] = input.readInt();
-                }
-                return ints;
+                visitor.visitIntArray(this.readIntArray());
+                break;
             case LONG_ARRAY:
-                arraySize = input.readInt();
-                long[] longs = new long[arraySize];
-                for (int i = 0; i < arraySize; i++) {
-                    longs[i] = input.readLong();
-                }
+                visitor.visitLongArray(this.readLongArray());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    private String readKey() throws IOException {
+        if (this.keyDictionary != null) {
+            return input.readUTF(this.keyDictionary);
+        } else if (this.internKeys) {
+            return input.readUTF().intern();
+        } else {
+            return input.readUTF();
+        }
+    }
+
+    private String readString() throws IOException {
+        if (this.internValues) {
+            return input.readUTF().intern();
+        } else {
+            return input.readUTF();
+        }
+    }
+
+    private byte[] readByteArray() throws IOException {
+        return readByteArray(input, this.readArrayLength());
+    }
+
+    static byte[] readByteArray(NbtDataInput input, int length) throws IOException {
+        byte[] bytes = new byte[preallocate(input, length)];
+        int offset = 0;
+        while (true) {
+            input.readFully(bytes, offset, bytes.length - offset);
+            if (bytes.length == length) {
+                return bytes;
+            }
+            offset = bytes.length;
+            bytes = Arrays.copyOf(bytes, grow(bytes.length, length));
+        }
+    }
+
+    private int[] readIntArray() throws IOException {
+        return readIntArray(input, this.readArrayLength());
+    }
+
+    static int[] readIntArray(NbtDataInput input, int length) throws IOException {
+        int[] ints = new int[preallocate(input, length)];
+        int offset = 0;
+        while (true) {
+            input.readInts(ints, offset, ints.length - offset);
+            if (ints.length == length) {
+                return ints;
+            }
+            offset = ints.length;
+            ints = Arrays.copyOf(ints, grow(ints.length, length));
+        }
+    }
+
+    private long[] readLongArray() throws IOException {
+        return readLongArray(input, this.readArrayLength());
+    }
+
+    static long[] readLongArray(NbtDataInput input, int length) throws IOException {
+        long[] longs = new long[preallocate(input, length)];
+        int offset = 0;
+        while (true) {
+            input.readLongs(longs, offset, longs.length - offset);
+            if (longs.length == length) {
                 return longs;
+            }
+            offset = longs.length;
+            longs = Arrays.copyOf(longs, grow(longs.length, length));
         }
+    }
 
-        throw new IllegalArgumentException("Unknown type " + type);
+    static void skip(NbtDataInput input, NbtType<?> type, int maxDepth) throws IOException {
+        skip(input, type, maxDepth, false);
+    }
+
+    /**
+     * Advances past a value without decoding it.
+     *
+     * @param strict whether to reject unknown type ids, negative lengths and non-empty lists of {@link NbtType#END},
+     *               which are otherwise tolerated like the decoder does
+     */
+    static void skip(NbtDataInput input, NbtType<?> type, int maxDepth, boolean strict) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("NBT compound is too deeply nested");
+        }
+
+        switch (type.getEnum()) {
+            case END:
+                break;
+            case BYTE:
+                input.skipFully(1);
+                break;
+            case SHORT:
+                input.skipFully(2);
+                break;
+            case INT:
+                input.skipInts(1);
+                break;
+            case LONG:
+                input.skipLongs(1);
+                break;
+            case FLOAT:
+                input.skipFully(4);
+                break;
+            case DOUBLE:
+                input.skipFully(8);
+                break;
+            case BYTE_ARRAY:
+                input.skipFully(readLength(input, strict));
+                break;
+            case STRING:
+                input.skipUTF();
+                break;
+            case COMPOUND:
+                NbtType<?> entryType;
+                while ((entryType = readType(input, strict)) != NbtType.END) {
+                    input.skipUTF();
+                    skip(input, entryType, maxDepth - 1, strict);
+                }
+                break;
+            case LIST:
+                NbtType<?> listType = readType(input, strict);
+                int listLength = readLength(input, strict);
+                if (strict && listType == NbtType.END && listLength > 0) {
+                    throw new IllegalArgumentException("List of " + listType.getTypeName() + " must be empty");
+                }
+                skipElements(input, listType, listLength, maxDepth - 1, strict);
+                break;
+            case INT_ARRAY:
+                input.skipInts(readLength(input, strict));
+                break;
+            case LONG_ARRAY:
+                input.skipLongs(readLength(input, strict));
+                break;
+        }
+    }
+
+    static void skipElements(NbtDataInput input, NbtType<?> type, int count, int maxDepth) throws IOException {
+        skipElements(input, type, count, maxDepth, false);
+    }
+
+    private static void skipElements(NbtDataInput input, NbtType<?> type, int count, int maxDepth, boolean strict) throws IOException {
+        if (count <= 0) {
+            return;
+        }
+        // Fixed width elements can be skipped in one go
+        switch (type.getEnum()) {
+            case END:
+                return;
+            case BYTE:
+                input.skipFully(count);
+                return;
+            case SHORT:
+                input.skipFully(2L * count);
+                return;
+            case INT:
+                input.skipInts(count);
+                return;
+            case LONG:
+                input.skipLongs(count);
+                return;
+            case FLOAT:
+                input.skipFully(4L * count);
+                return;
+            case DOUBLE:
+                input.skipFully(8L * count);
+                return;
+        }
+        for (int i = 0; i < count; i++) {
+            skip(input, type, maxDepth, strict);
+        }
+    }
+
+    private static NbtType<?> readType(NbtDataInput input, boolean strict) throws IOException {
+        int typeId = input.readUnsignedByte();
+        if (strict && typeId >= TYPE_COUNT) {
+            throw new IllegalArgumentException("Unknown tag type " + typeId);
+        }
+        return NbtType.byId(typeId);
+    }
+
+    private static int readLength(NbtDataInput input, boolean strict) throws IOException {
+        int length = input.readInt();
+        if (strict && length < 0) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        return length;
     }
 
     @Override
@@ -159,4 +957,86 @@ public class NBTInputStream implements Closeable {
             ((Closeable) input).close();
         }
     }
+
+    /**
+     * Decodes a range of compounds whose offsets are known, charging the shared read limit counters.
+     */
+    private final class ElementDecoder extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteArrayDataInput input;
+        private final int[] offsets;
+        private final Object[] elements;
+        private final int from;
+        private final int to;
+        private final int maxDepth;
+        private final int chunk;
+        private final AtomicLongArray counters;
+
+        private ElementDecoder(ByteArrayDataInput input, int[] offsets, Object[] elements, int from, int to,
+                               int maxDepth, int chunk, AtomicLongArray counters) {
+            this.input = input;
+            this.offsets = offsets;
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.maxDepth = maxDepth;
+            this.chunk = chunk;
+            this.counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > this.chunk) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ElementDecoder(this.input, this.offsets, this.elements, this.from, middle,
+                                this.maxDepth, this.chunk, this.counters),
+                        new ElementDecoder(this.input, this.offsets, this.elements, middle, this.to,
+                                this.maxDepth, this.chunk, this.counters));
+                return;
+            }
+
+            int start = this.offsets[this.from];
+            NBTInputStream reader = NBTInputStream.this.copy(ByteArrayDataInput.create(this.input.format(),
+                    this.input.array(), start, this.offsets[this.to] - start));
+            reader.sharedCounters = this.counters;
+            try {
+                for (int i = this.from; i < this.to; i++) {
+                    this.elements[i] = reader.readValue(NbtType.COMPOUND, this.maxDepth);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private final class DecodeFrame {
+        private final int depth;
+        private final LinkedHashMap<String, Object> map; // null for lists
+        private final NbtType<?> listType;
+        private final int length;
+        private Object[] elements;
+        private int size;
+        private String key;
+
+        private DecodeFrame(int depth, LinkedHashMap<String, Object> map, NbtType<?> listType, Object[] elements,
+                            int length) {
+            this.depth = depth;
+            this.map = map;
+            this.listType = listType;
+            this.elements = elements;
+            this.length = length;
+        }
+
+        private void add(Object value) {
+            if (this.map != null) {
+                this.map.put(this.key, value);
+                return;
+            }
+            if (this.size == this.elements.length) {
+                this.elements = growElements(this.elements, this.length);
+            }
+            this.elements[this.size++] = value;
+        }
+    }
 }
@@ -1,19 +1,93 @@
 package org.cloudburstmc.nbt;
 
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataOutput;
+import org.cloudburstmc.nbt.util.stream.LittleEndianDataOutputStream;
+import org.cloudburstmc.nbt.util.stream.NbtDataOutput;
+import org.cloudburstmc.nbt.util.stream.NetworkDataOutputStream;
+import org.cloudburstmc.nbt.util.stream.ReusableDataOutputStream;
+
 import java.io.Closeable;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-
-import static org.cloudburstmc.nbt.NbtType.byClass;
+import java.util.Set;
 
 public class NBTOutputStream implements Closeable {
-    private final DataOutput output;
+    private static final int SCRATCH_SIZE = 8192;
+
+    private DataOutput output;
+    private NbtFormat format;
     private boolean closed = false;
+    private final NbtKeyEncodingCache keyCache;
+    private boolean canonical;
+    private byte[] scratch;
+    private Object encoding; // The memoizing tag this writer is encoding, which must not be spliced into itself
+    private int lowestDepth = Integer.MAX_VALUE; // The lowest remaining depth a value was written at
 
     public NBTOutputStream(DataOutput output) {
         this.output = Objects.requireNonNull(output, "output");
+        this.format = formatOf(output);
+        this.keyCache = null;
+    }
+
+    /**
+     * Creates a writer which writes compound keys from the given cache. Keys are only taken from the cache if the
+     * output is one of the outputs of this library, since the format has to be known for them.
+     */
+    public NBTOutputStream(DataOutput output, NbtKeyEncodingCache keyCache) {
+        this.output = Objects.requireNonNull(output, "output");
+        this.format = formatOf(output);
+        this.keyCache = Objects.requireNonNull(keyCache, "keyCache");
+    }
+
+    /**
+     * Starts writing to a new output, as if this writer had just been created with it.
+     */
+    public void reset(DataOutput output) {
+        this.output = Objects.requireNonNull(output, "output");
+        this.format = formatOf(output);
+        this.closed = false;
+    }
+
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /**
+     * Sets whether compound entries are written in the natural order of their keys instead of their insertion order,
+     * so that equal tags are always written as the same bytes. Memoized and lazily read payloads are encoded again
+     * while this is enabled.
+     */
+    public void setCanonical(boolean canonical) {
+        this.canonical = canonical;
+    }
+
+    /**
+     * Returns the format written by the given output, or {@code null} if it is not one of the outputs of this library.
+     * Byte array outputs report their own {@link ByteArrayDataOutput#format() format}, so subclasses of them are known.
+     */
+    static NbtFormat formatOf(DataOutput output) {
+        if (output instanceof ByteArrayDataOutput) {
+            return ((ByteArrayDataOutput) output).format();
+        }
+        Class<?> outputClass = output.getClass();
+        if (outputClass == DataOutputStream.class || outputClass == ReusableDataOutputStream.class) {
+            return NbtFormat.BIG_ENDIAN;
+        } else if (outputClass == LittleEndianDataOutputStream.class) {
+            return NbtFormat.LITTLE_ENDIAN;
+        } else if (outputClass == NetworkDataOutputStream.class) {
+            return NbtFormat.NETWORK;
+        }
+        return null;
     }
 
     public void writeTag(Object tag) throws IOException {
@@ -21,17 +95,25 @@ public class NBTOutputStream implements Closeable {
     }
 
     public void writeTag(Object tag, int maxDepth) throws IOException {
+        this.writeTag(tag, maxDepth, maxDepth > NbtUtils.MAX_RECURSIVE_DEPTH);
+    }
+
+    void writeTag(Object tag, int maxDepth, boolean iterative) throws IOException {
         Objects.requireNonNull(tag, "tag");
         if (closed) {
             throw new IllegalStateException("closed");
         }
 
-        NbtType<?> type = byClass(tag.getClass());
+        NbtType<?> type = NbtType.typeOf(tag);
 
         output.writeByte(type.getId());
         output.writeUTF("");
 
-        this.serialize(tag, type, maxDepth);
+        if (iterative) {
+            this.serializeIterative(tag, type, maxDepth);
+        } else {
+            this.serialize(tag, type, maxDepth);
+        }
     }
 
     public void writeValue(Object tag) throws IOException {
@@ -44,15 +126,77 @@ public class NBTOutputStream implements Closeable {
             throw new IllegalStateException("closed");
         }
 
-        NbtType<?> type = byClass(tag.getClass());
-        this.serialize(tag, type, maxDepth);
+        NbtType<?> type = NbtType.typeOf(tag);
+        if (maxDepth > NbtUtils.MAX_RECURSIVE_DEPTH) {
+            this.serializeIterative(tag, type, maxDepth);
+        } else {
+            this.serialize(tag, type, maxDepth);
+        }
     }
 
     private void serialize(Object tag, NbtType<?> type, int maxDepth) throws IOException {
         if (maxDepth < 0) {
             throw new IllegalArgumentException("Reached depth limit");
         }
+        this.reached(maxDepth);
+        if (tag instanceof RawNbt) {
+            this.writeRaw((RawNbt) tag, maxDepth);
+            return;
+        }
+
+        switch (type.getEnum()) {
+            case LIST:
+                NbtList<?> list = (NbtList<?>) tag;
+                if (this.writeMemoized(tag, list.encodedForms(), maxDepth)) {
+                    break;
+                }
+
+                NbtType<?> listType = list.getType();
+                output.writeByte(listType.getId());
+                output.writeInt(list.size());
+                for (Object entry : list) {
+                    this.serialize(entry, listType, maxDepth - 1);
+                }
+                break;
+            case COMPOUND:
+                NbtMap map = (NbtMap) tag;
+                if (!this.canonical && map instanceof LazyNbtMap && ((LazyNbtMap) map).writeTo(output, this.format) ||
+                        this.writeMemoized(tag, map.encodedForms(), maxDepth)) {
+                    break;
+                }
+
+                for (Map.Entry<String, Object> entry : this.entries(map)) {
+                    NbtType<?> entryType = NbtType.typeOf(entry.getValue());
+
+                    output.writeByte(entryType.getId());
+                    this.writeKey(entry.getKey());
+
+                    this.serialize(entry.getValue(), entryType, maxDepth - 1);
+                }
+                output.writeByte(0); // End tag
+                break;
+            default:
+                this.writeScalar(tag, type);
+                break;
+        }
+    }
+
+    /**
+     * Writes a compound key, from the key cache if this writer has one.
+     */
+    private void writeKey(String key) throws IOException {
+        byte[] encoded;
+        if (this.keyCache != null && this.format != null && (encoded = this.keyCache.encode(key, this.format)) != null) {
+            output.write(encoded);
+        } else {
+            output.writeUTF(key);
+        }
+    }
 
+    /**
+     * Writes any value which is not a compound or a list.
+     */
+    private void writeScalar(Object tag, NbtType<?> type) throws IOException {
         switch (type.getEnum()) {
             case END:
                 break;
@@ -89,45 +233,221 @@ public class NBTOutputStream implements Closeable {
                 String string = (String) tag;
                 output.writeUTF(string);
                 break;
-            case LIST:
-                NbtList<?> list = (NbtList<?>) tag;
-                NbtType<?> listType = list.getType();
-                output.writeByte(listType.getId());
-                output.writeInt(list.size());
-                for (Object entry : list) {
-                    this.serialize(entry, listType, maxDepth - 1);
-                }
-                break;
-            case COMPOUND:
-                NbtMap map = (NbtMap) tag;
-
-                for (Map.Entry<String, Object> entry : map.entrySet()) {
-                    NbtType<?> entryType = byClass(entry.getValue().getClass());
-
-                    output.writeByte(entryType.getId());
-                    output.writeUTF(entry.getKey());
-
-                    this.serialize(entry.getValue(), entryType, maxDepth - 1);
-                }
-                output.writeByte(0); // End tag
-                break;
             case INT_ARRAY:
                 int[] intArray = (int[]) tag;
                 output.writeInt(intArray.length);
-                for (int val : intArray) {
-                    output.writeInt(val);
-                }
+                this.writeInts(intArray);
                 break;
             case LONG_ARRAY:
                 long[] longArray = (long[]) tag;
                 output.writeInt(longArray.length);
-                for (long val : longArray) {
-                    output.writeLong(val);
-                }
+                this.writeLongs(longArray);
                 break;
         }
     }
 
+    private void writeInts(int[] array) throws IOException {
+        if (output instanceof NbtDataOutput) {
+            ((NbtDataOutput) output).writeInts(array);
+        } else if (this.format == NbtFormat.BIG_ENDIAN) {
+            // A plain DataOutputStream, whose ints are converted in bulk here instead
+            byte[] scratch = this.scratch();
+            for (int offset = 0; offset < array.length; ) {
+                int count = Math.min(array.length - offset, scratch.length / 4);
+                ByteBuffer.wrap(scratch, 0, count * 4).asIntBuffer().put(array, offset, count);
+                output.write(scratch, 0, count * 4);
+                offset += count;
+            }
+        } else {
+            for (int val : array) {
+                output.writeInt(val);
+            }
+        }
+    }
+
+    private void writeLongs(long[] array) throws IOException {
+        if (output instanceof NbtDataOutput) {
+            ((NbtDataOutput) output).writeLongs(array);
+        } else if (this.format == NbtFormat.BIG_ENDIAN) {
+            byte[] scratch = this.scratch();
+            for (int offset = 0; offset < array.length; ) {
+                int count = Math.min(array.length - offset, scratch.length / 8);
+                ByteBuffer.wrap(scratch, 0, count * 8).asLongBuffer().put(array, offset, count);
+                output.write(scratch, 0, count * 8);
+                offset += count;
+            }
+        } else {
+            for (long val : array) {
+                output.writeLong(val);
+            }
+        }
+    }
+
+    private byte[] scratch() {
+        if (this.scratch == null) {
+            this.scratch = new byte[SCRATCH_SIZE];
+        }
+        return this.scratch;
+    }
+
+    /**
+     * Writes the same bytes as {@link #serialize(Object, NbtType, int)}, but keeps the open compounds and lists on an
+     * explicit stack, so that the nesting depth is not limited by the size of the thread's stack.
+     */
+    private void serializeIterative(Object tag, NbtType<?> type, int maxDepth) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Reached depth limit");
+        }
+        this.reached(maxDepth);
+        if (tag instanceof RawNbt) {
+            this.writeRaw((RawNbt) tag, maxDepth);
+            return;
+        }
+        if (type != NbtType.COMPOUND && type != NbtType.LIST) {
+            this.writeScalar(tag, type);
+            return;
+        }
+        EncodeFrame frame = this.openFrame(tag, type, maxDepth);
+        if (frame == null) {
+            return;
+        }
+
+        Deque<EncodeFrame> stack = new ArrayDeque<>();
+        while (true) {
+            if (!frame.iterator.hasNext()) {
+                if (frame.listType == null) {
+                    output.writeByte(0); // End tag
+                }
+                if (stack.isEmpty()) {
+                    return;
+                }
+                frame = stack.pop();
+                continue;
+            }
+
+            Object value;
+            NbtType<?> valueType;
+            if (frame.listType == null) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) frame.iterator.next();
+                value = entry.getValue();
+                valueType = NbtType.typeOf(value);
+
+                output.writeByte(valueType.getId());
+                this.writeKey((String) entry.getKey());
+            } else {
+                value = frame.iterator.next();
+                valueType = frame.listType;
+            }
+
+            if (frame.depth - 1 < 0) {
+                throw new IllegalArgumentException("Reached depth limit");
+            }
+            this.reached(frame.depth - 1);
+            if (value instanceof RawNbt) {
+                this.writeRaw((RawNbt) value, frame.depth - 1);
+            } else if (valueType == NbtType.COMPOUND || valueType == NbtType.LIST) {
+                EncodeFrame child = this.openFrame(value, valueType, frame.depth - 1);
+                if (child != null) {
+                    stack.push(frame);
+                    frame = child;
+                }
+            } else {
+                this.writeScalar(value, valueType);
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a compound or list and returns the frame to write its children with, or {@code null} if the
+     * whole value has already been written.
+     */
+    private EncodeFrame openFrame(Object tag, NbtType<?> type, int depth) throws IOException {
+        if (type == NbtType.LIST) {
+            NbtList<?> list = (NbtList<?>) tag;
+            if (this.writeMemoized(tag, list.encodedForms(), depth)) {
+                return null;
+            }
+            NbtType<?> listType = list.getType();
+            output.writeByte(listType.getId());
+            output.writeInt(list.size());
+            return new EncodeFrame(depth, listType, list.iterator());
+        }
+        NbtMap map = (NbtMap) tag;
+        if (!this.canonical && map instanceof LazyNbtMap && ((LazyNbtMap) map).writeTo(output, this.format) ||
+                this.writeMemoized(tag, map.encodedForms(), depth)) {
+            return null;
+        }
+        return new EncodeFrame(depth, null, this.entries(map).iterator());
+    }
+
+    /**
+     * Returns the entries of the compound in the order they are written in.
+     */
+    private Collection<Map.Entry<String, Object>> entries(NbtMap map) {
+        Set<Map.Entry<String, Object>> entries = map.entrySet();
+        if (!this.canonical || entries.size() < 2) {
+            return entries;
+        }
+        List<Map.Entry<String, Object>> sorted = new ArrayList<>(entries);
+        sorted.sort(Map.Entry.comparingByKey());
+        return sorted;
+    }
+
+    /**
+     * Copies the bytes of a raw value if it is in the format of this writer, otherwise decodes and writes the value.
+     */
+    private void writeRaw(RawNbt raw, int maxDepth) throws IOException {
+        if (raw.getFormat() == this.format && !this.canonical) {
+            raw.writeTo(output);
+            return;
+        }
+        Object value = raw.decode(maxDepth);
+        if (maxDepth > NbtUtils.MAX_RECURSIVE_DEPTH) {
+            this.serializeIterative(value, raw.getType(), maxDepth);
+        } else {
+            this.serialize(value, raw.getType(), maxDepth);
+        }
+    }
+
+    /**
+     * Writes the memoized payload of a compound or list, encoding and keeping it first if this format was not written
+     * before.
+     *
+     * @return whether the payload was written, which it is not if the tag doesn't memoize, the format is unknown or
+     * the payload is nested deeper than {@code maxDepth}, in which case writing it the normal way fails
+     */
+    private boolean writeMemoized(Object tag, EncodedForms forms, int maxDepth) throws IOException {
+        if (forms == null || this.format == null || this.canonical || tag == this.encoding) {
+            return false;
+        }
+        byte[] encoded = forms.get(this.format);
+        int depth;
+        if (encoded == null) {
+            ByteArrayDataOutput buffer = ByteArrayDataOutput.create(this.format);
+            NBTOutputStream writer = this.keyCache != null ? new NBTOutputStream(buffer, this.keyCache) :
+                    new NBTOutputStream(buffer);
+            writer.encoding = tag;
+            writer.writeValue(tag, maxDepth);
+            encoded = buffer.toByteArray();
+            depth = maxDepth - writer.lowestDepth;
+            forms.put(this.format, encoded, depth);
+        } else if ((depth = forms.depth()) > maxDepth) {
+            return false;
+        }
+        this.reached(maxDepth - depth);
+        output.write(encoded);
+        return true;
+    }
+
+    /**
+     * Records the remaining depth of a written value, so that the nesting depth of a memoized payload is known.
+     */
+    private void reached(int depth) {
+        if (depth < this.lowestDepth) {
+            this.lowestDepth = depth;
+        }
+    }
+
     @Override
     public void close() throws IOException {
         if (closed) return;
@@ -136,4 +456,16 @@ public class NBTOutputStream implements Closeable {
             ((Closeable) output).close();
         }
     }
+
+    private static final class EncodeFrame {
+        private final int depth;
+        private final NbtType<?> listType; // null for compounds
+        private final Iterator<?> iterator;
+
+        private EncodeFrame(int depth, NbtType<?> listType, Iterator<?> iterator) {
+            this.depth = depth;
+            this.listType = listType;
+            this.iterator = iterator;
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package org.cloudburstmc.nbt;
+
+/**
+ * The binary encodings supported by the readers and writers in this library.
+ */
+public enum NbtFormat {
+    /**
+     * Big-endian with modified UTF-8 strings, as used by Java Edition.
+     */
+    BIG_ENDIAN,
+    /**
+     * Little-endian with UTF-8 strings, as used by Bedrock Edition for files.
+     */
+    LITTLE_ENDIAN,
+    /**
+     * Little-endian with VarInt ints, longs and lengths, as used by Bedrock Edition for packets.
+     */
+    NETWORK
+}
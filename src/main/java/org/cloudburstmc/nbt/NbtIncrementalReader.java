@@ -0,0 +1,401 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+import static org.cloudburstmc.nbt.NbtUtils.MAX_DEPTH;
+import static org.cloudburstmc.nbt.NbtUtils.MAX_READ_SIZE;
+
+/**
+ * A non-blocking reader which decodes a named root tag from chunks of bytes as they arrive, for example on an event
+ * loop, producing the same tree as {@link NBTInputStream#readTag()}.
+ * <p>
+ * Each {@link #feed(ByteBuffer)} consumes the given bytes and decodes every value they complete, keeping its place in
+ * the tag between calls. Only the bytes of a value which has not fully arrived yet are buffered. Once the root tag is
+ * complete, any bytes following it are left in the buffer that was fed, and {@link #reset()} prepares the reader for
+ * the next tag.
+ */
+public class NbtIncrementalReader {
+    private final NbtFormat format;
+    private final int maxDepth;
+    private final long maxReadSize;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private NbtReadLimits readLimits = NbtReadLimits.UNLIMITED;
+    private long arrayElements;
+    private long listEntries;
+    private long compoundEntries;
+    private long readSize;
+
+    private byte[] buffer = new byte[256];
+    private int buffered;
+    private ByteArrayDataInput input;
+
+    private State state = State.ROOT;
+    private NbtType<?> valueType;
+    private int valueDepth;
+    private int arrayLength;
+    private Object array;
+    private int arrayIndex; // The number of elements of the array which have been decoded
+    private Object tag;
+
+    public NbtIncrementalReader(NbtFormat format) {
+        this(format, MAX_DEPTH, MAX_READ_SIZE);
+    }
+
+    /**
+     * @param maxReadSize the maximum number of bytes of a tag, including those still buffered, or {@code 0} to
+     *                    disable the limit
+     */
+    public NbtIncrementalReader(NbtFormat format, int maxDepth, long maxReadSize) {
+        this.format = Objects.requireNonNull(format, "format");
+        this.maxDepth = maxDepth;
+        this.maxReadSize = maxReadSize;
+    }
+
+    public NbtFormat getFormat() {
+        return format;
+    }
+
+    public NbtReadLimits getReadLimits() {
+        return readLimits;
+    }
+
+    public void setReadLimits(NbtReadLimits readLimits) {
+        this.readLimits = Objects.requireNonNull(readLimits, "readLimits");
+    }
+
+    /**
+     * Consumes the remaining bytes of the buffer and decodes as much of the root tag as they complete.
+     *
+     * @return {@link Status#COMPLETE} once the root tag has been read, in which case the buffer's position is right
+     * after its last byte, or {@link Status#NEED_MORE_INPUT} if all bytes were consumed and more are needed
+     * @throws IllegalStateException if the root tag has already been completed and the reader was not reset
+     */
+    public Status feed(ByteBuffer buffer) throws IOException {
+        Objects.requireNonNull(buffer, "buffer");
+        if (this.state == State.COMPLETE) {
+            throw new IllegalStateException("Root tag has already been read, reset the reader first");
+        }
+        int length = buffer.remaining();
+        if (this.maxReadSize > 0 && this.readSize + this.buffered + length > this.maxReadSize) {
+            throw new IOException("Read size exceeded limit: read=" + (this.readSize + this.buffered + length) +
+                    ", limit=" + this.maxReadSize);
+        }
+        if (this.buffered + length > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffered + length, this.buffer.length * 2));
+        }
+        buffer.get(this.buffer, this.buffered, length);
+        this.buffered += length;
+
+        ByteArrayDataInput input = this.input;
+        if (input == null) {
+            input = this.input = ByteArrayDataInput.create(this.format, this.buffer, 0, this.buffered);
+        } else {
+            input.reset(this.buffer, 0, this.buffered);
+        }
+        int mark = 0;
+        try {
+            while (this.state != State.COMPLETE) {
+                this.step(input);
+                mark = input.position();
+            }
+        } catch (EOFException e) {
+            // The current value has not fully arrived yet, it is decoded again from its start next time
+        }
+
+        this.readSize += mark;
+        int remaining = this.buffered - mark;
+        System.arraycopy(this.buffer, mark, this.buffer, 0, remaining);
+        this.buffered = remaining;
+        if (this.state == State.COMPLETE) {
+            // Everything after the end of the tag came from this buffer, so hand it back
+            buffer.position(buffer.position() - remaining);
+            this.buffered = 0;
+            return Status.COMPLETE;
+        }
+        return Status.NEED_MORE_INPUT;
+    }
+
+    /**
+     * Returns the root tag once {@link #feed(ByteBuffer)} reported {@link Status#COMPLETE}.
+     */
+    public Object getTag() {
+        if (this.state != State.COMPLETE) {
+            throw new IllegalStateException("Root tag has not been read completely");
+        }
+        return tag;
+    }
+
+    /**
+     * Discards any partially read tag, so that the next {@link #feed(ByteBuffer)} starts a new root tag.
+     */
+    public void reset() {
+        this.frames.clear();
+        this.arrayElements = 0;
+        this.listEntries = 0;
+        this.compoundEntries = 0;
+        this.readSize = 0;
+        this.buffered = 0;
+        this.state = State.ROOT;
+        this.valueType = null;
+        this.array = null;
+        this.arrayIndex = 0;
+        this.tag = null;
+    }
+
+    /**
+     * Decodes one value, or the header of one, and advances the state. Nothing is changed if the input ends first.
+     */
+    private void step(ByteArrayDataInput input) throws IOException {
+        switch (this.state) {
+            case ROOT:
+                NbtType<?> rootType = NbtType.byId(input.readUnsignedByte());
+                input.skipUTF(); // Root tag name
+                if (rootType == NbtType.END) {
+                    this.complete(null);
+                } else {
+                    this.startValue(rootType, this.maxDepth);
+                }
+                break;
+            case NEXT:
+                this.nextChild(input);
+                break;
+            case VALUE:
+                this.readValue(input);
+                break;
+            case ARRAY:
+                this.readArray(input);
+                break;
+        }
+    }
+
+    private void startValue(NbtType<?> type, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("NBT compound is too deeply nested");
+        }
+        this.valueType = type;
+        this.valueDepth = depth;
+        this.state = State.VALUE;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void nextChild(ByteArrayDataInput input) throws IOException {
+        Frame frame = this.frames.peek();
+        if (frame.map != null) {
+            NbtType<?> entryType = NbtType.byId(input.readUnsignedByte());
+            if (entryType == NbtType.END) {
+                this.frames.pop();
+                this.deliver(new NbtMap(frame.map));
+                return;
+            }
+            frame.key = input.readUTF();
+            this.compoundEntries = NBTInputStream.charge(this.compoundEntries, 1,
+                    this.readLimits.getMaxCompoundEntries(), "Compound entries");
+            this.startValue(entryType, frame.depth - 1);
+        } else if (frame.size < frame.length) {
+            this.startValue(frame.listType, frame.depth - 1);
+        } else {
+            this.frames.pop();
+            this.deliver(NbtList.wrap((NbtType) frame.listType, frame.elements));
+        }
+    }
+
+    private void readValue(ByteArrayDataInput input) throws IOException {
+        NbtType<?> type = this.valueType;
+        switch (type.getEnum()) {
+            case END:
+                this.deliver(null);
+                break;
+            case BYTE:
+                this.deliver(input.readByte());
+                break;
+            case SHORT:
+                this.deliver(input.readShort());
+                break;
+            case INT:
+                this.deliver(input.readInt());
+                break;
+            case LONG:
+                this.deliver(input.readLong());
+                break;
+            case FLOAT:
+                this.deliver(input.readFloat());
+                break;
+            case DOUBLE:
+                this.deliver(input.readDouble());
+                break;
+            case STRING:
+                this.deliver(input.readUTF());
+                break;
+            case BYTE_ARRAY:
+            case INT_ARRAY:
+            case LONG_ARRAY:
+                int length = input.readInt();
+                if (length < 0) {
+                    throw new IllegalArgumentException("Invalid array length " + length);
+                }
+                this.arrayElements = NBTInputStream.charge(this.arrayElements, length,
+                        this.readLimits.getMaxArrayElements(), "Array elements");
+                this.arrayLength = length;
+                this.array = null;
+                this.arrayIndex = 0;
+                this.state = State.ARRAY;
+                break;
+            case COMPOUND:
+                this.frames.push(new Frame(this.valueDepth, new LinkedHashMap<>(), null, null, 0));
+                this.state = State.NEXT;
+                break;
+            case LIST:
+                NbtType<?> listType = NbtType.byId(input.readUnsignedByte());
+                int listLength = input.readInt();
+                if (listLength <= 0 || listType == NbtType.END) {
+                    listLength = 0; // Lists of END have no payload
+                } else {
+                    this.listEntries = NBTInputStream.charge(this.listEntries, listLength,
+                            this.readLimits.getMaxListEntries(), "List entries");
+                }
+                Object[] elements = (Object[]) Array.newInstance(listType.getTagClass(),
+                        Math.min(listLength, NBTInputStream.MAX_PREALLOCATED_ELEMENTS));
+                this.frames.push(new Frame(this.valueDepth, null, listType, elements, listLength));
+                this.state = State.NEXT;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    private void readArray(ByteArrayDataInput input) throws IOException {
+        int length = this.arrayLength;
+        // Wait for the bytes before allocating, so that a claimed length is never trusted beyond what has arrived
+        long minSize = this.format == NbtFormat.NETWORK && this.valueType != NbtType.BYTE_ARRAY ?
+                length - this.arrayIndex : (long) length * elementSize(this.valueType);
+        if (minSize > input.remaining()) {
+            throw new EOFException();
+        }
+        switch (this.valueType.getEnum()) {
+            case BYTE_ARRAY:
+                byte[] bytes = new byte[length];
+                input.readFully(bytes);
+                this.deliver(bytes);
+                break;
+            case INT_ARRAY:
+                int[] ints = this.array == null ? new int[length] : (int[]) this.array;
+                this.array = ints;
+                if (this.format != NbtFormat.NETWORK) {
+                    input.readInts(ints);
+                } else if (!this.readVarInts(input, ints, null)) {
+                    return;
+                }
+                this.deliver(ints);
+                break;
+            case LONG_ARRAY:
+                long[] longs = this.array == null ? new long[length] : (long[]) this.array;
+                this.array = longs;
+                if (this.format != NbtFormat.NETWORK) {
+                    input.readLongs(longs);
+                } else if (!this.readVarInts(input, null, longs)) {
+                    return;
+                }
+                this.deliver(longs);
+                break;
+        }
+        this.array = null;
+    }
+
+    /**
+     * Decodes the VarInts of an array from the element where the last attempt stopped. VarInts may need more bytes
+     * than the minimum, so the elements decoded so far are kept if the input ends first.
+     *
+     * @return whether the array is complete
+     * @throws EOFException if not even one more element could be decoded
+     */
+    private boolean readVarInts(ByteArrayDataInput input, int[] ints, long[] longs) throws IOException {
+        int start = this.arrayIndex;
+        int length = this.arrayLength;
+        try {
+            for (; this.arrayIndex < length; this.arrayIndex++) {
+                if (ints != null) {
+                    ints[this.arrayIndex] = input.readInt();
+                } else {
+                    longs[this.arrayIndex] = input.readLong();
+                }
+            }
+        } catch (EOFException e) {
+            if (this.arrayIndex == start) {
+                throw e;
+            }
+            return false; // Resumed from the next element once more bytes have arrived
+        }
+        return true;
+    }
+
+    private static int elementSize(NbtType<?> arrayType) {
+        return arrayType == NbtType.BYTE_ARRAY ? 1 : arrayType == NbtType.INT_ARRAY ? 4 : 8;
+    }
+
+    private void deliver(Object value) {
+        Frame frame = this.frames.peek();
+        if (frame == null) {
+            this.complete(value);
+            return;
+        }
+        frame.add(value);
+        this.state = State.NEXT;
+    }
+
+    private void complete(Object tag) {
+        this.tag = tag;
+        this.state = State.COMPLETE;
+    }
+
+    public enum Status {
+        NEED_MORE_INPUT,
+        COMPLETE
+    }
+
+    private enum State {
+        ROOT,
+        NEXT,
+        VALUE,
+        ARRAY,
+        COMPLETE
+    }
+
+    private static final class Frame {
+        private final int depth;
+        private final LinkedHashMap<String, Object> map; // null for lists
+        private final NbtType<?> listType;
+        private final int length;
+        private Object[] elements;
+        private int size;
+        private String key;
+
+        private Frame(int depth, LinkedHashMap<String, Object> map, NbtType<?> listType, Object[] elements, int length) {
+            this.depth = depth;
+            this.map = map;
+            this.listType = listType;
+            this.elements = elements;
+            this.length = length;
+        }
+
+        private void add(Object value) {
+            if (this.map != null) {
+                this.map.put(this.key, value);
+                return;
+            }
+            if (this.size == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, (int) Math.min(this.length, this.elements.length * 2L));
+            }
+            this.elements[this.size++] = value;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.cloudburstmc.nbt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A bounded cache of compound keys which is matched against the encoded bytes of a key, so that keys which were read
+ * before are returned without decoding them into a new {@link String}.
+ * <p>
+ * Only ASCII keys are cached, since they are encoded the same way by every {@link NbtFormat}. A dictionary may
+ * therefore be shared between readers of any format and thread. When two keys compete for the same slot, the most
+ * recent one wins.
+ */
+public final class NbtKeyDictionary {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public NbtKeyDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NbtKeyDictionary(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the key encoded by the given bytes, adding it to the dictionary if it was not there yet.
+     *
+     * @return the key or {@code null} if the bytes are not a key this dictionary caches, in which case they have to be
+     * decoded by the caller
+     */
+    public String lookup(byte[] bytes, int offset, int length) {
+        if (length > MAX_KEY_LENGTH) {
+            return null;
+        }
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            byte b = bytes[i];
+            if (b <= 0) {
+                // Not ASCII, or a NUL which modified UTF-8 encodes differently
+                return null;
+            }
+            hash = 31 * hash + b;
+        }
+
+        Entry[] entries = this.entries;
+        int index = (hash ^ (hash >>> 16)) & this.mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.hash == hash && entry.matches(bytes, offset, length)) {
+            return entry.key;
+        }
+        String key = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        // Entries are immutable, so publishing them through a plain array store is safe
+        entries[index] = new Entry(hash, Arrays.copyOfRange(bytes, offset, offset + length), key);
+        return key;
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private final byte[] bytes;
+        private final String key;
+
+        private Entry(int hash, byte[] bytes, String key) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.key = key;
+        }
+
+        private boolean matches(byte[] bytes, int offset, int length) {
+            byte[] own = this.bytes;
+            if (own.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (own[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The writer side counterpart of {@link NbtKeyDictionary}: it keeps the length prefixed bytes of compound keys for
+ * each {@link NbtFormat}, so that a {@link NBTOutputStream} writes keys it has seen before with a single
+ * {@code write} call. It is bounded and may be shared the same way.
+ *
+ * @see NBTOutputStream#NBTOutputStream(java.io.DataOutput, NbtKeyEncodingCache)
+ */
+public final class NbtKeyEncodingCache {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final NbtFormat[] FORMATS = NbtFormat.values();
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public NbtKeyEncodingCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NbtKeyEncodingCache(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the length prefixed bytes of the key in the given format, adding them to the cache if they were not
+     * there yet. The returned array must not be modified.
+     *
+     * @return the encoded key or {@code null} if this cache does not cache the key, in which case it has to be encoded
+     * by the caller
+     */
+    public byte[] encode(String key, NbtFormat format) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            return null;
+        }
+        int hash = key.hashCode();
+        Entry[] entries = this.entries;
+        int index = (hash ^ (hash >>> 16)) & this.mask;
+        Entry entry = entries[index];
+        byte[][] forms;
+        if (entry != null && entry.key.equals(key)) {
+            byte[] encoded = entry.forms[format.ordinal()];
+            if (encoded != null) {
+                return encoded;
+            }
+            forms = entry.forms.clone();
+        } else {
+            forms = new byte[FORMATS.length][];
+        }
+        byte[] encoded = encodeKey(key, format);
+        forms[format.ordinal()] = encoded;
+        entries[index] = new Entry(key, forms);
+        return encoded;
+    }
+
+    private static byte[] encodeKey(String key, NbtFormat format) {
+        ByteArrayDataOutput output = ByteArrayDataOutput.create(format, key.length() * 3 + 5);
+        try {
+            output.writeUTF(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Keys this short always fit the length prefix
+        }
+        return output.toByteArray();
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final byte[][] forms;
+
+        private Entry(String key, byte[][] forms) {
+            this.key = key;
+            this.forms = forms;
+        }
+    }
+}
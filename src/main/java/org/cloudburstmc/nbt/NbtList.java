@@ -12,6 +12,8 @@ public class NbtList<E> extends AbstractList<E> {
     private final E[] array;
     private transient boolean hashCodeGenerated;
     private transient int hashCode;
+    private transient int[] serializedSizes;
+    private transient volatile EncodedForms encodedForms;
 
     @SuppressWarnings("unchecked")
     public NbtList(NbtType<E> type, Collection<E> collection) {
@@ -26,10 +28,64 @@ public class NbtList<E> extends AbstractList<E> {
         this.array = Arrays.copyOf(array, array.length);
     }
 
+    // The parameter order keeps this apart from the varargs constructor
+    private NbtList(E[] array, NbtType<E> type) {
+        this.type = type;
+        this.array = array;
+    }
+
+    /**
+     * Creates a list backed by the given array without copying it. The array must not be modified afterwards.
+     */
+    static <E> NbtList<E> wrap(NbtType<E> type, E[] array) {
+        return new NbtList<>(array, type);
+    }
+
     public NbtType<E> getType() {
         return type;
     }
 
+    /**
+     * Makes writers keep the encoded payload of this list for every format they write it in, and copy those bytes
+     * on later writes instead of encoding it again. This is meant for large tags which are sent over and over, the
+     * bytes are held for as long as this instance.
+     *
+     * @return this list
+     */
+    public NbtList<E> memoizeEncoded() {
+        if (this.encodedForms == null) {
+            this.encodedForms = new EncodedForms();
+        }
+        return this;
+    }
+
+    EncodedForms encodedForms() {
+        return this.encodedForms;
+    }
+
+    /**
+     * Returns the number of bytes the payload of this list is encoded to, which is cached like the hash code.
+     */
+    long serializedSize(NbtFormat format) {
+        int[] sizes = this.serializedSizes;
+        if (sizes != null && sizes[format.ordinal()] != 0) {
+            return sizes[format.ordinal()];
+        }
+        EncodedForms forms = this.encodedForms;
+        byte[] encoded = forms == null ? null : forms.get(format);
+        if (encoded != null) {
+            return encoded.length;
+        }
+        long size = NbtSizes.listSize(this.array, format);
+        if (size <= Integer.MAX_VALUE) {
+            if (sizes == null) {
+                sizes = this.serializedSizes = new int[NbtSizes.FORMAT_COUNT];
+            }
+            sizes[format.ordinal()] = (int) size;
+        }
+        return size;
+    }
+
     @Override
     public E get(int index) {
         if (index < 0 || index >= array.length) {
@@ -24,6 +24,8 @@ public class NbtMap extends AbstractMap<String, Object> {
     private transient Collection<Object> values;
     private transient boolean hashCodeGenerated;
     private transient int hashCode;
+    private transient int[] serializedSizes;
+    private transient volatile EncodedForms encodedForms;
 
     private NbtMap() {
         this.map = new LinkedHashMap<>();
@@ -33,6 +35,10 @@ public class NbtMap extends AbstractMap<String, Object> {
         this.map = map;
     }
 
+    Map<String, Object> map() {
+        return this.map;
+    }
+
     public static NbtMapBuilder builder() {
         return new NbtMapBuilder();
     }
@@ -46,30 +52,30 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public boolean containsKey(String key, NbtType<?> type) {
-        Object o = this.map.get(key);
-        return o != null && o.getClass() == type.getTagClass();
+        Object o = this.map().get(key);
+        return type.getTagClass().isInstance(o);
     }
 
     @Override
     public Object get(Object key) {
-        return NbtUtils.copy(this.map.get(key));
+        return NbtUtils.copy(this.map().get(key));
     }
 
     @Override
     public Set<String> keySet() {
-        if (keySet == null) keySet = Collections.unmodifiableSet(this.map.keySet());
+        if (keySet == null) keySet = Collections.unmodifiableSet(this.map().keySet());
         return keySet;
     }
 
     @Override
     public Set<Map.Entry<String, Object>> entrySet() {
-        if (entrySet == null) entrySet = new UnmodifiableEntrySet<>(this.map.entrySet());
+        if (entrySet == null) entrySet = new UnmodifiableEntrySet<>(this.map().entrySet());
         return entrySet;
     }
 
     @Override
     public Collection<Object> values() {
-        if (values == null) values = Collections.unmodifiableCollection(this.map.values());
+        if (values == null) values = Collections.unmodifiableCollection(this.map().values());
         return values;
     }
 
@@ -78,7 +84,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public boolean getBoolean(String key, boolean defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Byte) {
             return ((byte) tag) != 0;
         }
@@ -86,7 +92,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForBoolean(String key, BooleanConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Byte) {
             consumer.accept(((byte) tag) != 0);
         }
@@ -97,7 +103,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public byte getByte(String key, byte defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Byte) {
             return (byte) tag;
         }
@@ -105,7 +111,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForByte(String key, ByteConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Byte) {
             consumer.accept((byte) tag);
         }
@@ -116,7 +122,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public short getShort(String key, short defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Short) {
             return (short) tag;
         }
@@ -124,7 +130,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForShort(String key, ShortConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Short) {
             consumer.accept((short) tag);
         }
@@ -135,7 +141,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public int getInt(String key, int defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Integer) {
             return (int) tag;
         }
@@ -143,7 +149,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForInt(String key, IntConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Integer) {
             consumer.accept((int) tag);
         }
@@ -154,7 +160,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public long getLong(String key, long defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Long) {
             return (long) tag;
         }
@@ -162,7 +168,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForLong(String key, LongConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Long) {
             consumer.accept((long) tag);
         }
@@ -173,7 +179,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public float getFloat(String key, float defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Float) {
             return (float) tag;
         }
@@ -181,7 +187,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForFloat(String key, FloatConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Float) {
             consumer.accept((float) tag);
         }
@@ -192,7 +198,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public double getDouble(String key, double defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Double) {
             return (double) tag;
         }
@@ -200,7 +206,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForDouble(String key, DoubleConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Double) {
             consumer.accept((double) tag);
         }
@@ -211,7 +217,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public String getString(String key, @Nullable String defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof String) {
             return (String) tag;
         }
@@ -219,7 +225,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForString(String key, Consumer<String> consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof String) {
             consumer.accept((String) tag);
         }
@@ -230,7 +236,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public byte[] getByteArray(String key, @Nullable byte[] defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof byte[]) {
             byte[] bytes = (byte[]) tag;
             return Arrays.copyOf(bytes, bytes.length);
@@ -239,7 +245,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForByteArray(String key, Consumer<byte[]> consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof byte[]) {
             byte[] bytes = (byte[]) tag;
             consumer.accept(Arrays.copyOf(bytes, bytes.length));
@@ -251,7 +257,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public int[] getIntArray(String key, @Nullable int[] defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof int[]) {
             int[] ints = (int[]) tag;
             return Arrays.copyOf(ints, ints.length);
@@ -260,7 +266,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForIntArray(String key, Consumer<int[]> consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof int[]) {
             int[] ints = (int[]) tag;
             consumer.accept(Arrays.copyOf(ints, ints.length));
@@ -272,7 +278,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public long[] getLongArray(String key, @Nullable long[] defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof long[]) {
             long[] longs = (long[]) tag;
             return Arrays.copyOf(longs, longs.length);
@@ -281,7 +287,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForLongArray(String key, Consumer<long[]> consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof long[]) {
             long[] longs = (long[]) tag;
             consumer.accept(Arrays.copyOf(longs, longs.length));
@@ -293,7 +299,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public NbtMap getCompound(String key, @Nullable NbtMap defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof NbtMap) {
             return (NbtMap) tag;
         }
@@ -301,7 +307,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForCompound(String key, Consumer<NbtMap> consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof NbtMap) {
             consumer.accept((NbtMap) tag);
         }
@@ -313,7 +319,7 @@ public class NbtMap extends AbstractMap<String, Object> {
 
     @SuppressWarnings("unchecked")
     public <T> List<T> getList(String key, NbtType<T> type, @Nullable List<T> defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof NbtList && ((NbtList<?>) tag).getType() == type) {
             return (NbtList<T>) tag;
         }
@@ -322,7 +328,7 @@ public class NbtMap extends AbstractMap<String, Object> {
 
     @SuppressWarnings("unchecked")
     public <T> void listenForList(String key, NbtType<T> type, Consumer<List<T>> consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof NbtList<?> && ((NbtList<?>) tag).getType() == type) {
             consumer.accept((NbtList<T>) tag);
         }
@@ -333,7 +339,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public Number getNumber(String key, Number defaultValue) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Number) {
             return (Number) tag;
         }
@@ -341,7 +347,7 @@ public class NbtMap extends AbstractMap<String, Object> {
     }
 
     public void listenForNumber(String key, NumberConsumer consumer) {
-        Object tag = this.map.get(key);
+        Object tag = this.map().get(key);
         if (tag instanceof Number) {
             consumer.accept((Number) tag);
         }
@@ -387,16 +393,57 @@ public class NbtMap extends AbstractMap<String, Object> {
         if (this.hashCodeGenerated)
             return this.hashCode;
         int result = 0;
-        for (Entry<String, Object> stringObjectEntry : this.map.entrySet())
+        for (Entry<String, Object> stringObjectEntry : this.map().entrySet())
             result += stringObjectEntry.getKey().hashCode() ^ NbtUtils.hashCode(stringObjectEntry.getValue());
         this.hashCode = result;
         this.hashCodeGenerated = true;
         return result;
     }
 
+    /**
+     * Makes writers keep the encoded payload of this compound for every format they write it in, and copy those bytes
+     * on later writes instead of encoding it again. This is meant for large tags which are sent over and over, the
+     * bytes are held for as long as this instance.
+     *
+     * @return this compound
+     */
+    public NbtMap memoizeEncoded() {
+        if (this.encodedForms == null) {
+            this.encodedForms = new EncodedForms();
+        }
+        return this;
+    }
+
+    EncodedForms encodedForms() {
+        return this.encodedForms;
+    }
+
+    /**
+     * Returns the number of bytes the payload of this compound is encoded to, which is cached like the hash code.
+     */
+    long serializedSize(NbtFormat format) {
+        int[] sizes = this.serializedSizes;
+        if (sizes != null && sizes[format.ordinal()] != 0) {
+            return sizes[format.ordinal()];
+        }
+        EncodedForms forms = this.encodedForms;
+        byte[] encoded = forms == null ? null : forms.get(format);
+        if (encoded != null) {
+            return encoded.length;
+        }
+        long size = NbtSizes.compoundSize(this.map(), format);
+        if (size <= Integer.MAX_VALUE) {
+            if (sizes == null) {
+                sizes = this.serializedSizes = new int[NbtSizes.FORMAT_COUNT];
+            }
+            sizes[format.ordinal()] = (int) size;
+        }
+        return size;
+    }
+
     @Override
     public String toString() {
-        return mapToString(this.map);
+        return mapToString(this.map());
     }
 
     static String mapToString(Map<String, Object> map) {
@@ -25,7 +25,7 @@ public class NbtMapBuilder extends LinkedHashMap<String, Object> {
             value = (byte) ((boolean) value ? 1 : 0);
         }
 
-        NbtType.byClass(value.getClass()); // Make sure value is valid
+        NbtType.typeOf(value); // Make sure value is valid
         return super.put(key, NbtUtils.copy(value));
     }
 
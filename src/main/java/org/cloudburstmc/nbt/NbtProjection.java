@@ -0,0 +1,142 @@
+package org.cloudburstmc.nbt;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A set of key paths to read from a tag, for use with {@link NBTInputStream#readTag(NbtProjection)}.
+ * <p>
+ * Only the entries on an included path are decoded, everything else is skipped without being materialized. Including
+ * a path includes the whole subtree below it. Paths descend into lists transparently, so {@code Level.Entities.id}
+ * keeps only the {@code id} of every compound in the {@code Entities} list.
+ */
+public final class NbtProjection {
+    private static final Pattern DOT = Pattern.compile(".", Pattern.LITERAL);
+
+    private final Node root;
+
+    private NbtProjection(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates a projection from dot separated paths such as {@code "Level.Entities"}. Use {@link #builder()} if a key
+     * contains a dot.
+     */
+    public static NbtProjection of(String... paths) {
+        Builder builder = builder();
+        for (String path : paths) {
+            builder.include(DOT.split(path, -1));
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    NbtTreeBuilder createBuilder() {
+        return new ProjectingBuilder(this.root);
+    }
+
+    public static final class Builder {
+        private final Node root = new Node();
+
+        private Builder() {
+        }
+
+        public Builder include(String... path) {
+            Objects.requireNonNull(path, "path");
+            if (path.length == 0) {
+                throw new IllegalArgumentException("Path must not be empty");
+            }
+            Node node = this.root;
+            for (String key : path) {
+                if (node.all) {
+                    return this; // Already included by a shorter path
+                }
+                node = node.children.computeIfAbsent(Objects.requireNonNull(key, "key"), k -> new Node());
+            }
+            node.all = true;
+            node.children.clear();
+            return this;
+        }
+
+        public NbtProjection build() {
+            return new NbtProjection(this.root.copy());
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean all;
+
+        private Node copy() {
+            Node copy = new Node();
+            copy.all = this.all;
+            this.children.forEach((key, child) -> copy.children.put(key, child.copy()));
+            return copy;
+        }
+    }
+
+    private static final class ProjectingBuilder extends NbtTreeBuilder {
+        private Node[] stack = new Node[16];
+        private int depth;
+        private Node pending;
+
+        private ProjectingBuilder(Node root) {
+            this.pending = root;
+        }
+
+        private void push() {
+            if (this.depth == this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, this.depth << 1);
+            }
+            this.stack[this.depth++] = this.pending;
+        }
+
+        private void pop() {
+            this.stack[--this.depth] = null;
+            // List elements share the node of their list, compound entries set their own in visitCompoundEntry
+            this.pending = this.depth == 0 ? null : this.stack[this.depth - 1];
+        }
+
+        @Override
+        public void visitCompoundStart() {
+            this.push();
+            super.visitCompoundStart();
+        }
+
+        @Override
+        public Result visitCompoundEntry(String name, NbtType<?> type) {
+            Node node = this.stack[this.depth - 1];
+            Node child = node.all ? node : node.children.get(name);
+            if (child == null) {
+                return Result.SKIP;
+            }
+            this.pending = child;
+            return super.visitCompoundEntry(name, type);
+        }
+
+        @Override
+        public void visitCompoundEnd() {
+            this.pop();
+            super.visitCompoundEnd();
+        }
+
+        @Override
+        public Result visitListStart(NbtType<?> type, int size) {
+            this.push();
+            return super.visitListStart(type, size);
+        }
+
+        @Override
+        public void visitListEnd() {
+            this.pop();
+            super.visitListEnd();
+        }
+    }
+}
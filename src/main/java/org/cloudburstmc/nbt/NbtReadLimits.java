@@ -0,0 +1,44 @@
+package org.cloudburstmc.nbt;
+
+/**
+ * Limits how many array elements, list entries and compound entries a {@link NBTInputStream} may decode until it is
+ * {@linkplain NBTInputStream#reset(java.io.DataInput) reset}. Lengths read from the input are checked against these
+ * limits before anything is allocated for them, so a tag which claims a huge array or list fails immediately. A limit
+ * of {@code 0} or less disables it.
+ *
+ * @see NBTInputStream#setReadLimits(NbtReadLimits)
+ */
+public final class NbtReadLimits {
+    public static final NbtReadLimits UNLIMITED = new NbtReadLimits(0, 0, 0);
+
+    private final long maxArrayElements;
+    private final long maxListEntries;
+    private final long maxCompoundEntries;
+
+    public NbtReadLimits(long maxArrayElements, long maxListEntries, long maxCompoundEntries) {
+        this.maxArrayElements = maxArrayElements;
+        this.maxListEntries = maxListEntries;
+        this.maxCompoundEntries = maxCompoundEntries;
+    }
+
+    /**
+     * The total number of elements of all byte, int and long arrays.
+     */
+    public long getMaxArrayElements() {
+        return maxArrayElements;
+    }
+
+    public long getMaxListEntries() {
+        return maxListEntries;
+    }
+
+    public long getMaxCompoundEntries() {
+        return maxCompoundEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "NbtReadLimits(maxArrayElements=" + maxArrayElements + ", maxListEntries=" + maxListEntries +
+                ", maxCompoundEntries=" + maxCompoundEntries + ")";
+    }
+}
@@ -0,0 +1,151 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.VarInts;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Computes how many bytes {@link NBTOutputStream} writes for a value, without encoding it.
+ */
+final class NbtSizes {
+    static final int FORMAT_COUNT = NbtFormat.values().length;
+
+    private NbtSizes() {
+    }
+
+    static long valueSize(Object value, NbtFormat format) {
+        if (value instanceof RawNbt) {
+            return rawSize((RawNbt) value, format);
+        }
+        NbtType<?> type = NbtType.byClass(value.getClass());
+        switch (type.getEnum()) {
+            case END:
+                return 0;
+            case BYTE:
+                return 1;
+            case SHORT:
+                return 2;
+            case INT:
+                return intSize((Integer) value, format);
+            case LONG:
+                return longSize((Long) value, format);
+            case FLOAT:
+                return 4;
+            case DOUBLE:
+                return 8;
+            case BYTE_ARRAY:
+                byte[] bytes = (byte[]) value;
+                return intSize(bytes.length, format) + bytes.length;
+            case STRING:
+                return stringSize((String) value, format);
+            case INT_ARRAY:
+                int[] ints = (int[]) value;
+                long intsSize = intSize(ints.length, format);
+                if (format != NbtFormat.NETWORK) {
+                    return intsSize + 4L * ints.length;
+                }
+                for (int i : ints) {
+                    intsSize += intSize(i, format);
+                }
+                return intsSize;
+            case LONG_ARRAY:
+                long[] longs = (long[]) value;
+                long longsSize = intSize(longs.length, format);
+                if (format != NbtFormat.NETWORK) {
+                    return longsSize + 8L * longs.length;
+                }
+                for (long l : longs) {
+                    longsSize += longSize(l, format);
+                }
+                return longsSize;
+            case LIST:
+                return ((NbtList<?>) value).serializedSize(format);
+            case COMPOUND:
+                return ((NbtMap) value).serializedSize(format);
+        }
+        throw new IllegalArgumentException("Unknown type " + type);
+    }
+
+    static long compoundSize(Map<String, Object> map, NbtFormat format) {
+        long size = 1; // End tag
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            size += 1 + stringSize(entry.getKey(), format) + valueSize(entry.getValue(), format);
+        }
+        return size;
+    }
+
+    static long listSize(Object[] elements, NbtFormat format) {
+        long size = 1 + intSize(elements.length, format);
+        for (Object element : elements) {
+            size += valueSize(element, format);
+        }
+        return size;
+    }
+
+    static int intSize(int value, NbtFormat format) {
+        return format == NbtFormat.NETWORK ? VarInts.unsignedSize(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL) : 4;
+    }
+
+    static int longSize(long value, NbtFormat format) {
+        return format == NbtFormat.NETWORK ? VarInts.unsignedSize((value << 1) ^ (value >> 63)) : 8;
+    }
+
+    /**
+     * Returns the length of a raw value in its own format, or the size of the decoded value in any other.
+     */
+    private static long rawSize(RawNbt raw, NbtFormat format) {
+        if (raw.getFormat() == format) {
+            return raw.getLength();
+        }
+        try {
+            return valueSize(raw.decode(), format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to decode raw value", e);
+        }
+    }
+
+    /**
+     * Returns the size of a string including its length prefix.
+     */
+    static long stringSize(String string, NbtFormat format) {
+        long length = format == NbtFormat.BIG_ENDIAN ? modifiedUtf8Length(string) : utf8Length(string);
+        return (format == NbtFormat.NETWORK ? VarInts.unsignedSize(length & 0xFFFFFFFFL) : 2) + length;
+    }
+
+    private static long modifiedUtf8Length(String string) {
+        int length = string.length();
+        long encoded = length;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c == 0 || c >= 0x80) {
+                encoded += c >= 0x800 ? 2 : 1;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns the length of {@code string.getBytes(UTF_8)}, which replaces unpaired surrogates with a single byte.
+     */
+    private static long utf8Length(String string) {
+        int length = string.length();
+        long encoded = length;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                encoded += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                encoded += 2; // 4 bytes for both chars
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                encoded += 2;
+            }
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,371 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.LimitedDataInput;
+import org.cloudburstmc.nbt.util.stream.NbtDataInput;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.cloudburstmc.nbt.NbtUtils.MAX_DEPTH;
+import static org.cloudburstmc.nbt.NbtUtils.MAX_READ_SIZE;
+
+/**
+ * A pull parser which reads a tag one token at a time, without building {@link NbtMap}s or {@link NbtList}s.
+ * <p>
+ * Compound entries are reported as a {@link NbtToken#NAME} token followed by the token of the value, list elements as
+ * just their value token. Primitive values are read eagerly and exposed unboxed, strings and arrays are only decoded
+ * when they are requested and skipped otherwise. {@link #nextToken()} returns {@code null} once the root tag has been
+ * read completely.
+ */
+public class NbtStreamReader implements Closeable {
+    private final NbtDataInput input;
+    private final int maxDepth;
+    private final NbtType<?>[] listTypes; // null for compounds
+    private final int[] listRemaining;
+    private int depth;
+    private boolean started;
+    private boolean closed;
+    private NbtReadLimits readLimits = NbtReadLimits.UNLIMITED;
+    private long arrayElements;
+    private long listEntries;
+    private long compoundEntries;
+
+    private NbtToken token;
+    private NbtType<?> type;
+    private NbtType<?> entryType;
+    private String name;
+    private long longValue;
+    private double doubleValue;
+    private int size;
+    private boolean valuePending;
+    private Object value;
+
+    public NbtStreamReader(DataInput input) {
+        this(input, MAX_READ_SIZE, MAX_DEPTH);
+    }
+
+    public NbtStreamReader(DataInput input, long maxReadSize) {
+        this(input, maxReadSize, MAX_DEPTH);
+    }
+
+    public NbtStreamReader(DataInput input, long maxReadSize, int maxDepth) {
+        Objects.requireNonNull(input, "input");
+        if (input instanceof NbtDataInput) {
+            this.input = (NbtDataInput) input;
+        } else {
+            this.input = new LimitedDataInput(input, maxReadSize);
+        }
+        this.maxDepth = maxDepth;
+        this.listTypes = new NbtType<?>[Math.max(0, maxDepth + 1)];
+        this.listRemaining = new int[this.listTypes.length];
+    }
+
+    public NbtReadLimits getReadLimits() {
+        return readLimits;
+    }
+
+    /**
+     * Sets the limits which the lengths of arrays and lists and the number of compound entries are checked against,
+     * in total for everything this reader reads.
+     */
+    public void setReadLimits(NbtReadLimits readLimits) {
+        this.readLimits = Objects.requireNonNull(readLimits, "readLimits");
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the next token or {@code null} if the root tag has been read completely
+     */
+    public NbtToken nextToken() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Trying to read from a closed reader!");
+        }
+        if (this.valuePending) {
+            this.skipValue();
+        }
+
+        if (this.entryType != null) {
+            NbtType<?> type = this.entryType;
+            this.entryType = null;
+            return this.startValue(type);
+        }
+
+        if (this.depth == 0) {
+            if (this.started) {
+                return this.token = null;
+            }
+            this.started = true;
+            NbtType<?> type = NbtType.byId(this.input.readUnsignedByte());
+            this.name = this.input.readUTF();
+            if (type == NbtType.END) {
+                return this.token = null;
+            }
+            return this.startValue(type);
+        }
+
+        int level = this.depth - 1;
+        NbtType<?> listType = this.listTypes[level];
+        if (listType == null) {
+            int typeId = this.input.readUnsignedByte();
+            if (typeId == 0) {
+                this.depth--;
+                this.type = NbtType.COMPOUND;
+                return this.token = NbtToken.END_COMPOUND;
+            }
+            this.entryType = NbtType.byId(typeId);
+            this.name = this.input.readUTF();
+            this.compoundEntries = NBTInputStream.charge(this.compoundEntries, 1,
+                    this.readLimits.getMaxCompoundEntries(), "Compound entries");
+            return this.token = NbtToken.NAME;
+        }
+
+        if (this.listRemaining[level] <= 0) {
+            this.depth--;
+            this.type = NbtType.LIST;
+            return this.token = NbtToken.END_LIST;
+        }
+        this.listRemaining[level]--;
+        return this.startValue(listType);
+    }
+
+    /**
+     * Skips the rest of the compound or list that was started by the current token, after which the current token is
+     * the matching {@link NbtToken#END_COMPOUND} or {@link NbtToken#END_LIST}. Does nothing for any other token.
+     */
+    public void skipChildren() throws IOException {
+        if (this.token == NbtToken.START_COMPOUND) {
+            int typeId;
+            while ((typeId = this.input.readUnsignedByte()) != 0) {
+                NbtType<?> entryType = NbtType.byId(typeId);
+                this.input.skipUTF();
+                NBTInputStream.skip(this.input, entryType, this.maxDepth - this.depth);
+            }
+            this.depth--;
+            this.token = NbtToken.END_COMPOUND;
+        } else if (this.token == NbtToken.START_LIST) {
+            int level = this.depth - 1;
+            NBTInputStream.skipElements(this.input, this.listTypes[level], this.listRemaining[level], this.maxDepth - this.depth);
+            this.depth--;
+            this.token = NbtToken.END_LIST;
+        }
+    }
+
+    private NbtToken startValue(NbtType<?> type) throws IOException {
+        if (this.depth > this.maxDepth) {
+            throw new IllegalArgumentException("NBT compound is too deeply nested");
+        }
+        this.type = type;
+
+        switch (type.getEnum()) {
+            case BYTE:
+                this.longValue = this.input.readByte();
+                return this.token = NbtToken.BYTE;
+            case SHORT:
+                this.longValue = this.input.readShort();
+                return this.token = NbtToken.SHORT;
+            case INT:
+                this.longValue = this.input.readInt();
+                return this.token = NbtToken.INT;
+            case LONG:
+                this.longValue = this.input.readLong();
+                return this.token = NbtToken.LONG;
+            case FLOAT:
+                this.doubleValue = this.input.readFloat();
+                return this.token = NbtToken.FLOAT;
+            case DOUBLE:
+                this.doubleValue = this.input.readDouble();
+                return this.token = NbtToken.DOUBLE;
+            case BYTE_ARRAY:
+                this.startPendingValue(this.readLength());
+                return this.token = NbtToken.BYTE_ARRAY;
+            case STRING:
+                this.startPendingValue(0);
+                return this.token = NbtToken.STRING;
+            case INT_ARRAY:
+                this.startPendingValue(this.readLength());
+                return this.token = NbtToken.INT_ARRAY;
+            case LONG_ARRAY:
+                this.startPendingValue(this.readLength());
+                return this.token = NbtToken.LONG_ARRAY;
+            case COMPOUND:
+                this.listTypes[this.depth] = null;
+                this.depth++;
+                return this.token = NbtToken.START_COMPOUND;
+            case LIST:
+                NbtType<?> listType = NbtType.byId(this.input.readUnsignedByte());
+                this.size = Math.max(0, this.input.readInt());
+                if (this.size > 0 && listType != NbtType.END) {
+                    this.listEntries = NBTInputStream.charge(this.listEntries, this.size,
+                            this.readLimits.getMaxListEntries(), "List entries");
+                    NBTInputStream.checkRemaining(this.input, this.size); // Every element takes at least one byte
+                }
+                this.listTypes[this.depth] = listType;
+                // END elements have no payload, so there is nothing to report for them
+                this.listRemaining[this.depth] = listType == NbtType.END ? 0 : this.size;
+                this.depth++;
+                return this.token = NbtToken.START_LIST;
+        }
+        throw new IllegalArgumentException("Unexpected " + type.getTypeName() + " value");
+    }
+
+    private int readLength() throws IOException {
+        int length = this.input.readInt();
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid array length " + length);
+        }
+        this.arrayElements = NBTInputStream.charge(this.arrayElements, length, this.readLimits.getMaxArrayElements(),
+                "Array elements");
+        NBTInputStream.checkRemaining(this.input, length); // Every element takes at least one byte, even as a VarInt
+        return length;
+    }
+
+    private void startPendingValue(int size) {
+        this.size = size;
+        this.value = null;
+        this.valuePending = true;
+    }
+
+    private void skipValue() throws IOException {
+        switch (this.token) {
+            case BYTE_ARRAY:
+                this.input.skipFully(this.size);
+                break;
+            case STRING:
+                this.input.skipUTF();
+                break;
+            case INT_ARRAY:
+                this.input.skipInts(this.size);
+                break;
+            case LONG_ARRAY:
+                this.input.skipLongs(this.size);
+                break;
+        }
+        this.valuePending = false;
+    }
+
+    private void checkToken(NbtToken expected) {
+        if (this.token != expected) {
+            throw new IllegalStateException("Current token is " + this.token + ", not " + expected);
+        }
+    }
+
+    public NbtToken getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the type of the current value, or of the upcoming value if the current token is {@link NbtToken#NAME}.
+     */
+    public NbtType<?> getType() {
+        return this.token == NbtToken.NAME ? this.entryType : this.type;
+    }
+
+    /**
+     * Returns the name of the most recent compound entry, or the name of the root tag.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public byte getByte() {
+        this.checkToken(NbtToken.BYTE);
+        return (byte) this.longValue;
+    }
+
+    public boolean getBoolean() {
+        return this.getByte() != 0;
+    }
+
+    public short getShort() {
+        this.checkToken(NbtToken.SHORT);
+        return (short) this.longValue;
+    }
+
+    public int getInt() {
+        this.checkToken(NbtToken.INT);
+        return (int) this.longValue;
+    }
+
+    public long getLong() {
+        this.checkToken(NbtToken.LONG);
+        return this.longValue;
+    }
+
+    public float getFloat() {
+        this.checkToken(NbtToken.FLOAT);
+        return (float) this.doubleValue;
+    }
+
+    public double getDouble() {
+        this.checkToken(NbtToken.DOUBLE);
+        return this.doubleValue;
+    }
+
+    public String getString() throws IOException {
+        this.checkToken(NbtToken.STRING);
+        if (this.valuePending) {
+            this.value = this.input.readUTF();
+            this.valuePending = false;
+        }
+        return (String) this.value;
+    }
+
+    public byte[] getByteArray() throws IOException {
+        this.checkToken(NbtToken.BYTE_ARRAY);
+        if (this.valuePending) {
+            this.value = NBTInputStream.readByteArray(this.input, this.size);
+            this.valuePending = false;
+        }
+        return (byte[]) this.value;
+    }
+
+    public int[] getIntArray() throws IOException {
+        this.checkToken(NbtToken.INT_ARRAY);
+        if (this.valuePending) {
+            this.value = NBTInputStream.readIntArray(this.input, this.size);
+            this.valuePending = false;
+        }
+        return (int[]) this.value;
+    }
+
+    public long[] getLongArray() throws IOException {
+        this.checkToken(NbtToken.LONG_ARRAY);
+        if (this.valuePending) {
+            this.value = NBTInputStream.readLongArray(this.input, this.size);
+            this.valuePending = false;
+        }
+        return (long[]) this.value;
+    }
+
+    /**
+     * Returns the number of elements of the current list or array.
+     */
+    public int getSize() {
+        if (this.token != NbtToken.START_LIST && this.token != NbtToken.BYTE_ARRAY &&
+                this.token != NbtToken.INT_ARRAY && this.token != NbtToken.LONG_ARRAY) {
+            throw new IllegalStateException("Current token is " + this.token + ", not a list or array");
+        }
+        return this.size;
+    }
+
+    public NbtType<?> getListType() {
+        this.checkToken(NbtToken.START_LIST);
+        return this.listTypes[this.depth - 1];
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (input instanceof Closeable) {
+            ((Closeable) input).close();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.cloudburstmc.nbt;
+
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.cloudburstmc.nbt.NbtUtils.MAX_DEPTH;
+
+/**
+ * A writer which encodes a named root tag one value at a time, without building {@link NbtMap}s or {@link NbtList}s
+ * first. It produces the same bytes as {@link NBTOutputStream#writeTag(Object)} for the same output.
+ * <p>
+ * Compound entries are written by calling {@link #name(String)} followed by the method for the value, list elements
+ * by just calling the method for the value. Every compound and list is closed with {@link #end()}. The structure is
+ * checked as it is written, so a missing name, a list element of the wrong type or a list with the wrong number of
+ * elements fails with an {@link IllegalStateException} instead of producing a malformed tag.
+ */
+public class NbtStreamWriter implements Closeable {
+    private final DataOutput output;
+    private final int maxDepth;
+    private final NbtType<?>[] listTypes; // null for compounds
+    private final int[] listRemaining;
+    private NBTOutputStream tagWriter;
+    private int depth;
+    private boolean started;
+    private boolean closed;
+    private String name;
+
+    public NbtStreamWriter(DataOutput output) {
+        this(output, MAX_DEPTH);
+    }
+
+    public NbtStreamWriter(DataOutput output, int maxDepth) {
+        this.output = Objects.requireNonNull(output, "output");
+        this.maxDepth = maxDepth;
+        this.listTypes = new NbtType<?>[Math.max(0, maxDepth + 1)];
+        this.listRemaining = new int[this.listTypes.length];
+    }
+
+    /**
+     * Sets the name of the next compound entry, or of the root tag if nothing has been written yet. The root tag is
+     * unnamed otherwise.
+     */
+    public NbtStreamWriter name(String name) {
+        Objects.requireNonNull(name, "name");
+        this.checkOpen();
+        if (this.name != null) {
+            throw new IllegalStateException("Name has already been set to " + this.name);
+        }
+        if (this.depth == 0 ? this.started : this.listTypes[this.depth - 1] != null) {
+            throw new IllegalStateException("Only compound entries and the root tag have a name");
+        }
+        this.name = name;
+        return this;
+    }
+
+    public NbtStreamWriter beginCompound() throws IOException {
+        this.startValue(NbtType.COMPOUND);
+        this.listTypes[this.depth] = null;
+        this.depth++;
+        return this;
+    }
+
+    /**
+     * Starts a list which must be given exactly {@code size} elements of the given type before it is ended.
+     */
+    public NbtStreamWriter beginList(NbtType<?> type, int size) throws IOException {
+        Objects.requireNonNull(type, "type");
+        if (size < 0 || type == NbtType.END && size != 0) {
+            throw new IllegalArgumentException("Invalid size " + size + " for a list of " + type.getTypeName());
+        }
+        this.startValue(NbtType.LIST);
+        this.output.writeByte(type.getId());
+        this.output.writeInt(size);
+        this.listTypes[this.depth] = type;
+        this.listRemaining[this.depth] = size;
+        this.depth++;
+        return this;
+    }
+
+    /**
+     * Ends the innermost compound or list.
+     */
+    public NbtStreamWriter end() throws IOException {
+        this.checkOpen();
+        if (this.depth == 0) {
+            throw new IllegalStateException("There is no compound or list to end");
+        }
+        int level = this.depth - 1;
+        if (this.listTypes[level] == null) {
+            if (this.name != null) {
+                throw new IllegalStateException("Missing value for compound entry " + this.name);
+            }
+            this.output.writeByte(0); // End tag
+        } else if (this.listRemaining[level] != 0) {
+            throw new IllegalStateException("List is missing " + this.listRemaining[level] + " elements");
+        }
+        this.depth--;
+        return this;
+    }
+
+    public NbtStreamWriter writeByte(int value) throws IOException {
+        this.startValue(NbtType.BYTE);
+        this.output.writeByte(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeBoolean(boolean value) throws IOException {
+        return this.writeByte(value ? 1 : 0);
+    }
+
+    public NbtStreamWriter writeShort(int value) throws IOException {
+        this.startValue(NbtType.SHORT);
+        this.output.writeShort(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeInt(int value) throws IOException {
+        this.startValue(NbtType.INT);
+        this.output.writeInt(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeLong(long value) throws IOException {
+        this.startValue(NbtType.LONG);
+        this.output.writeLong(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeFloat(float value) throws IOException {
+        this.startValue(NbtType.FLOAT);
+        this.output.writeFloat(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeDouble(double value) throws IOException {
+        this.startValue(NbtType.DOUBLE);
+        this.output.writeDouble(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeString(String value) throws IOException {
+        Objects.requireNonNull(value, "value");
+        this.startValue(NbtType.STRING);
+        this.output.writeUTF(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeByteArray(byte[] value) throws IOException {
+        Objects.requireNonNull(value, "value");
+        this.startValue(NbtType.BYTE_ARRAY);
+        this.output.writeInt(value.length);
+        this.output.write(value);
+        return this;
+    }
+
+    public NbtStreamWriter writeIntArray(int[] value) throws IOException {
+        Objects.requireNonNull(value, "value");
+        this.startValue(NbtType.INT_ARRAY);
+        this.tagWriter().writeValue(value); // Converts the elements in bulk
+        return this;
+    }
+
+    public NbtStreamWriter writeLongArray(long[] value) throws IOException {
+        Objects.requireNonNull(value, "value");
+        this.startValue(NbtType.LONG_ARRAY);
+        this.tagWriter().writeValue(value); // Converts the elements in bulk
+        return this;
+    }
+
+    /**
+     * Writes a complete value of any type, such as a prebuilt {@link NbtMap} or {@link NbtList}.
+     */
+    public NbtStreamWriter writeValue(Object value) throws IOException {
+        Objects.requireNonNull(value, "value");
+        NbtType<?> type = NbtType.typeOf(value);
+        this.startValue(type);
+        this.tagWriter().writeValue(value, this.maxDepth - this.depth);
+        return this;
+    }
+
+    private NBTOutputStream tagWriter() {
+        if (this.tagWriter == null) {
+            this.tagWriter = new NBTOutputStream(this.output);
+        }
+        return this.tagWriter;
+    }
+
+    /**
+     * Returns whether the root tag has been written completely.
+     */
+    public boolean isComplete() {
+        return this.started && this.depth == 0;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Checks that a value of the given type may be written next and writes its type and name if it needs them.
+     */
+    private void startValue(NbtType<?> type) throws IOException {
+        this.checkOpen();
+        if (this.depth == 0) {
+            if (this.started) {
+                throw new IllegalStateException("Root tag has already been written");
+            }
+            if (this.maxDepth < 0) {
+                throw new IllegalArgumentException("Reached depth limit");
+            }
+            this.started = true;
+            this.output.writeByte(type.getId());
+            this.output.writeUTF(this.name != null ? this.name : "");
+            this.name = null;
+            return;
+        }
+
+        int level = this.depth - 1;
+        NbtType<?> listType = this.listTypes[level];
+        if (listType == null) {
+            if (this.name == null) {
+                throw new IllegalStateException("Compound entries need a name");
+            }
+        } else if (type != listType) {
+            throw new IllegalStateException("Cannot add " + type.getTypeName() + " to a list of " + listType.getTypeName());
+        } else if (this.listRemaining[level] == 0) {
+            throw new IllegalStateException("List already has all of its elements");
+        }
+        if (this.depth > this.maxDepth) {
+            throw new IllegalArgumentException("Reached depth limit");
+        }
+
+        if (listType == null) {
+            this.output.writeByte(type.getId());
+            this.output.writeUTF(this.name);
+            this.name = null;
+        } else {
+            this.listRemaining[level]--;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("closed");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (output instanceof Closeable) {
+            ((Closeable) output).close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataInput;
+import org.cloudburstmc.nbt.util.stream.NbtDataInput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Reads consecutive named root tags, see {@link NBTInputStream#tagSpliterator()}.
+ */
+final class NbtTagSpliterator implements Spliterator<Object> {
+    private final NBTInputStream reader;
+    private final int maxDepth;
+
+    NbtTagSpliterator(NBTInputStream reader, int maxDepth) {
+        this.reader = reader;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Object> action) {
+        Objects.requireNonNull(action, "action");
+        try {
+            return this.reader.readNextTag(this.maxDepth, action::accept);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<Object> trySplit() {
+        NbtDataInput input = this.reader.input();
+        if (!(input instanceof ByteArrayDataInput)) {
+            return null;
+        }
+        ByteArrayDataInput arrayInput = (ByteArrayDataInput) input;
+        byte[] array = arrayInput.array();
+        int start = arrayInput.position();
+        int end = start + arrayInput.remaining();
+        int middle = start + (end - start) / 2;
+
+        // Skip whole tags until the middle has been passed, everything before that boundary is split off
+        ByteArrayDataInput walker = ByteArrayDataInput.create(arrayInput.format(), array, start, end - start);
+        try {
+            do {
+                NbtType<?> type = NbtType.byId(walker.readUnsignedByte());
+                walker.skipUTF(); // Root tag name
+                NBTInputStream.skip(walker, type, this.maxDepth);
+            } while (walker.position() < middle);
+        } catch (IOException | IllegalArgumentException e) {
+            return null; // Malformed input is reported once it is actually read
+        }
+        int boundary = walker.position();
+        if (boundary >= end) {
+            return null;
+        }
+
+        NBTInputStream prefix = this.reader.copy(
+                ByteArrayDataInput.create(arrayInput.format(), array, start, boundary - start));
+        arrayInput.reset(array, boundary, end - boundary);
+        return new NbtTagSpliterator(prefix, this.maxDepth);
+    }
+
+    /**
+     * Returns the number of remaining bytes for readers backed by a byte array, which is proportional enough to the
+     * number of tags to balance the splits.
+     */
+    @Override
+    public long estimateSize() {
+        NbtDataInput input = this.reader.input();
+        return input instanceof ByteArrayDataInput ? ((ByteArrayDataInput) input).remaining() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
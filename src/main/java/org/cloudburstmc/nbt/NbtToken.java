@@ -0,0 +1,19 @@
+package org.cloudburstmc.nbt;
+
+public enum NbtToken {
+    START_COMPOUND,
+    END_COMPOUND,
+    START_LIST,
+    END_LIST,
+    NAME,
+    BYTE,
+    SHORT,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    BYTE_ARRAY,
+    STRING,
+    INT_ARRAY,
+    LONG_ARRAY
+}
@@ -0,0 +1,125 @@
+package org.cloudburstmc.nbt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A {@link NbtVisitor} which builds the visited tag into {@link NbtMap}s and {@link NbtList}s, exactly as
+ * {@link NBTInputStream#readTag()} would. Entries skipped by a subclass are left out of the result.
+ */
+public class NbtTreeBuilder implements NbtVisitor {
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private Object result;
+
+    /**
+     * Returns the root value, or {@code null} if it has not been visited completely yet.
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    protected void visitValue(Object value) {
+        Frame frame = this.frames.peek();
+        if (frame == null) {
+            this.result = value;
+        } else if (frame.map != null) {
+            frame.map.put(frame.key, value);
+        } else {
+            frame.list.add(value);
+        }
+    }
+
+    @Override
+    public void visitByte(byte value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitShort(short value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitInt(int value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitLong(long value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitFloat(float value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitDouble(double value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitByteArray(byte[] value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitString(String value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitIntArray(int[] value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitLongArray(long[] value) {
+        this.visitValue(value);
+    }
+
+    @Override
+    public void visitCompoundStart() {
+        Frame frame = new Frame();
+        frame.map = new LinkedHashMap<>();
+        this.frames.push(frame);
+    }
+
+    @Override
+    public Result visitCompoundEntry(String name, NbtType<?> type) {
+        this.frames.element().key = name;
+        return Result.CONTINUE;
+    }
+
+    @Override
+    public void visitCompoundEnd() {
+        this.visitValue(new NbtMap(this.frames.pop().map));
+    }
+
+    @Override
+    public Result visitListStart(NbtType<?> type, int size) {
+        Frame frame = new Frame();
+        frame.type = type;
+        frame.list = new ArrayList<>();
+        this.frames.push(frame);
+        return Result.CONTINUE;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void visitListEnd() {
+        Frame frame = this.frames.pop();
+        this.visitValue(new NbtList(frame.type, frame.list));
+    }
+
+    private static class Frame {
+        private LinkedHashMap<String, Object> map;
+        private String key;
+        private NbtType<?> type;
+        private List<Object> list;
+    }
+}
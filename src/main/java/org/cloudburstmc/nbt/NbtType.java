@@ -29,6 +29,7 @@ public final class NbtType<T> {
         for (NbtType<?> type : BY_ID) {
             BY_CLASS.put(type.getTagClass(), type);
         }
+        BY_CLASS.put(LazyNbtMap.class, COMPOUND);
     }
 
     private final Class<T> tagClass;
@@ -56,6 +57,15 @@ public final class NbtType<T> {
         return type;
     }
 
+    /**
+     * Returns the type of a value, which is the type of its class unless it is a {@link RawNbt}.
+     */
+    public static NbtType<?> typeOf(Object value) {
+        if (value instanceof RawNbt) {
+            return ((RawNbt) value).getType();
+        }
+        return byClass(value.getClass());
+    }
 
     public Class<T> getTagClass() {
         return tagClass;
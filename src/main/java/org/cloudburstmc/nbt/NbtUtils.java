@@ -1,11 +1,9 @@
 package org.cloudburstmc.nbt;
 
-import org.cloudburstmc.nbt.util.stream.LittleEndianDataInputStream;
-import org.cloudburstmc.nbt.util.stream.LittleEndianDataOutputStream;
-import org.cloudburstmc.nbt.util.stream.NetworkDataInputStream;
-import org.cloudburstmc.nbt.util.stream.NetworkDataOutputStream;
+import org.cloudburstmc.nbt.util.stream.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.StringJoiner;
 import java.util.zip.GZIPInputStream;
@@ -16,6 +14,10 @@ import static java.util.Objects.requireNonNull;
 public class NbtUtils {
     public static final int MAX_DEPTH = 16;
     public static final long MAX_READ_SIZE = 0; // Disabled by default
+    /**
+     * Tags which may be nested deeper than this are read and written with an explicit stack instead of recursion.
+     */
+    static final int MAX_RECURSIVE_DEPTH = 64;
 
     private NbtUtils() {
     }
@@ -55,6 +57,21 @@ public class NbtUtils {
         return new NBTInputStream(new NetworkDataInputStream(stream, maxReadSize), internKeys, internValues);
     }
 
+    public static NBTInputStream createReader(InputStream stream, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(stream, "stream");
+        return new NBTInputStream(new DataInputStream(stream), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createReaderLE(InputStream stream, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(stream, "stream");
+        return new NBTInputStream(new LittleEndianDataInputStream(stream), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createNetworkReader(InputStream stream, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(stream, "stream");
+        return new NBTInputStream(new NetworkDataInputStream(stream), keyDictionary, internValues);
+    }
+
     public static NBTInputStream createReader(InputStream stream) {
         return createReader(stream, MAX_READ_SIZE);
     }
@@ -87,16 +104,110 @@ public class NbtUtils {
         return createNetworkReader(stream, false, false, maxReadSize);
     }
 
+    public static NBTInputStream createReader(byte[] bytes) {
+        return createReader(bytes, false, false);
+    }
+
+    public static NBTInputStream createReader(byte[] bytes, boolean internKeys, boolean internValues) {
+        requireNonNull(bytes, "bytes");
+        return new NBTInputStream(new ByteArrayDataInput(bytes), internKeys, internValues);
+    }
+
+    public static NBTInputStream createReader(byte[] bytes, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(bytes, "bytes");
+        return new NBTInputStream(new ByteArrayDataInput(bytes), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createReader(ByteBuffer buffer) {
+        return createReader(buffer, false, false);
+    }
+
+    public static NBTInputStream createReader(ByteBuffer buffer, boolean internKeys, boolean internValues) {
+        requireNonNull(buffer, "buffer");
+        return new NBTInputStream(new ByteArrayDataInput(buffer), internKeys, internValues);
+    }
+
+    public static NBTInputStream createReader(ByteBuffer buffer, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(buffer, "buffer");
+        return new NBTInputStream(new ByteArrayDataInput(buffer), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createReaderLE(byte[] bytes) {
+        return createReaderLE(bytes, false, false);
+    }
+
+    public static NBTInputStream createReaderLE(byte[] bytes, boolean internKeys, boolean internValues) {
+        requireNonNull(bytes, "bytes");
+        return new NBTInputStream(new LittleEndianByteArrayDataInput(bytes), internKeys, internValues);
+    }
+
+    public static NBTInputStream createReaderLE(byte[] bytes, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(bytes, "bytes");
+        return new NBTInputStream(new LittleEndianByteArrayDataInput(bytes), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createReaderLE(ByteBuffer buffer) {
+        return createReaderLE(buffer, false, false);
+    }
+
+    public static NBTInputStream createReaderLE(ByteBuffer buffer, boolean internKeys, boolean internValues) {
+        requireNonNull(buffer, "buffer");
+        return new NBTInputStream(new LittleEndianByteArrayDataInput(buffer), internKeys, internValues);
+    }
+
+    public static NBTInputStream createReaderLE(ByteBuffer buffer, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(buffer, "buffer");
+        return new NBTInputStream(new LittleEndianByteArrayDataInput(buffer), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createNetworkReader(byte[] bytes) {
+        return createNetworkReader(bytes, false, false);
+    }
+
+    public static NBTInputStream createNetworkReader(byte[] bytes, boolean internKeys, boolean internValues) {
+        requireNonNull(bytes, "bytes");
+        return new NBTInputStream(new NetworkByteArrayDataInput(bytes), internKeys, internValues);
+    }
+
+    public static NBTInputStream createNetworkReader(byte[] bytes, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(bytes, "bytes");
+        return new NBTInputStream(new NetworkByteArrayDataInput(bytes), keyDictionary, internValues);
+    }
+
+    public static NBTInputStream createNetworkReader(ByteBuffer buffer) {
+        return createNetworkReader(buffer, false, false);
+    }
+
+    public static NBTInputStream createNetworkReader(ByteBuffer buffer, boolean internKeys, boolean internValues) {
+        requireNonNull(buffer, "buffer");
+        return new NBTInputStream(new NetworkByteArrayDataInput(buffer), internKeys, internValues);
+    }
+
+    public static NBTInputStream createNetworkReader(ByteBuffer buffer, NbtKeyDictionary keyDictionary, boolean internValues) {
+        requireNonNull(buffer, "buffer");
+        return new NBTInputStream(new NetworkByteArrayDataInput(buffer), keyDictionary, internValues);
+    }
+
     public static NBTOutputStream createWriter(OutputStream stream) {
         requireNonNull(stream, "stream");
         return new NBTOutputStream(new DataOutputStream(stream));
     }
 
+    public static NBTOutputStream createWriter(OutputStream stream, NbtKeyEncodingCache keyCache) {
+        requireNonNull(stream, "stream");
+        return new NBTOutputStream(new DataOutputStream(stream), keyCache);
+    }
+
     public static NBTOutputStream createWriterLE(OutputStream stream) {
         requireNonNull(stream, "stream");
         return new NBTOutputStream(new LittleEndianDataOutputStream(stream));
     }
 
+    public static NBTOutputStream createWriterLE(OutputStream stream, NbtKeyEncodingCache keyCache) {
+        requireNonNull(stream, "stream");
+        return new NBTOutputStream(new LittleEndianDataOutputStream(stream), keyCache);
+    }
+
     public static NBTOutputStream createGZIPWriter(OutputStream stream) throws IOException {
         return createWriter(new GZIPOutputStream(stream));
     }
@@ -105,6 +216,99 @@ public class NbtUtils {
         return new NBTOutputStream(new NetworkDataOutputStream(stream));
     }
 
+    public static NBTOutputStream createNetworkWriter(OutputStream stream, NbtKeyEncodingCache keyCache) {
+        return new NBTOutputStream(new NetworkDataOutputStream(stream), keyCache);
+    }
+
+    /**
+     * Returns the reader of the calling thread for the given format, reset onto the given bytes. Every call on the same
+     * thread returns the same reader, so it must not be used anymore once the next message is read. Its settings, such
+     * as the read limits and decode pool, are reset to their defaults on every call.
+     */
+    public static NBTInputStream threadLocalReader(NbtFormat format, byte[] bytes) {
+        requireNonNull(bytes, "bytes");
+        return threadLocalReader(format, bytes, 0, bytes.length);
+    }
+
+    public static NBTInputStream threadLocalReader(NbtFormat format, byte[] bytes, int offset, int length) {
+        requireNonNull(format, "format");
+        return ThreadLocalCodecs.get(format).reader(bytes, offset, length);
+    }
+
+    public static NBTInputStream threadLocalReader(NbtFormat format, ByteBuffer buffer) {
+        requireNonNull(format, "format");
+        return ThreadLocalCodecs.get(format).reader(requireNonNull(buffer, "buffer"));
+    }
+
+    public static NBTInputStream threadLocalReader(NbtFormat format, InputStream stream) {
+        requireNonNull(format, "format");
+        return ThreadLocalCodecs.get(format).reader(requireNonNull(stream, "stream"));
+    }
+
+    /**
+     * Returns the writer of the calling thread for the given format, reset onto the given stream. Like
+     * {@link #threadLocalReader(NbtFormat, byte[])}, it must not be used anymore once the next message is written, and
+     * it is no longer canonical when it is returned again.
+     */
+    public static NBTOutputStream threadLocalWriter(NbtFormat format, OutputStream stream) {
+        requireNonNull(format, "format");
+        return ThreadLocalCodecs.get(format).writer(requireNonNull(stream, "stream"));
+    }
+
+    /**
+     * Encodes a named root tag into a new array, using a buffer of the calling thread that is reused between calls.
+     */
+    public static byte[] encode(NbtFormat format, Object tag) throws IOException {
+        requireNonNull(format, "format");
+        return ThreadLocalCodecs.get(format).encode(requireNonNull(tag, "tag")).toByteArray();
+    }
+
+    /**
+     * Encodes a named root tag into the given buffer, advancing its position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining, in which case
+     *                                          nothing is written to it
+     */
+    public static void encode(NbtFormat format, Object tag, ByteBuffer buffer) throws IOException {
+        requireNonNull(format, "format");
+        requireNonNull(buffer, "buffer");
+        ThreadLocalCodecs.get(format).encode(requireNonNull(tag, "tag")).writeTo(buffer);
+    }
+
+    /**
+     * Returns the exact number of bytes {@link NBTOutputStream#writeTag(Object)} writes for the given tag in the given
+     * format, without encoding it. The sizes of compounds and lists are cached on them, so arrays held by a tag must
+     * not be modified once its size was computed.
+     */
+    public static long serializedSize(Object tag, NbtFormat format) {
+        requireNonNull(tag, "tag");
+        requireNonNull(format, "format");
+        return 1 + NbtSizes.stringSize("", format) + NbtSizes.valueSize(tag, format);
+    }
+
+    /**
+     * Returns the number of bytes {@link NBTOutputStream#writeValue(Object)} writes for the given value.
+     */
+    public static long serializedValueSize(Object value, NbtFormat format) {
+        requireNonNull(value, "value");
+        requireNonNull(format, "format");
+        return NbtSizes.valueSize(value, format);
+    }
+
+    /**
+     * Returns a 64-bit hash of the named root tag as it is written in {@link NBTOutputStream#setCanonical canonical}
+     * big-endian form, which is computed while encoding without keeping the bytes. Equal tags have the same hash,
+     * whatever the order their compound entries were added in.
+     */
+    public static long contentHash(Object tag) throws IOException {
+        requireNonNull(tag, "tag");
+        ContentHasher hasher = new ContentHasher();
+        NBTOutputStream writer = new NBTOutputStream(hasher);
+        writer.setCanonical(true);
+        writer.writeTag(tag);
+        return hasher.finish();
+    }
+
     public static String toString(Object o) {
         if (o == null) {
             return "null";
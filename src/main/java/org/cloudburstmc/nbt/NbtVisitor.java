@@ -0,0 +1,79 @@
+package org.cloudburstmc.nbt;
+
+/**
+ * Receives the contents of a tag as it is decoded by {@link NBTInputStream#readTag(NbtVisitor)}.
+ * <p>
+ * Compound entries and lists can be skipped by returning {@link Result#SKIP}, in which case the reader jumps over the
+ * encoded value without decoding it and no further callbacks are made for it, including the matching
+ * {@link #visitListEnd()}. All methods do nothing by default, so implementations only need to override the callbacks
+ * they are interested in. {@link NbtTreeBuilder} builds the same {@link NbtMap}s and {@link NbtList}s as
+ * {@link NBTInputStream#readTag()}.
+ */
+public interface NbtVisitor {
+
+    default void visitByte(byte value) {
+    }
+
+    default void visitShort(short value) {
+    }
+
+    default void visitInt(int value) {
+    }
+
+    default void visitLong(long value) {
+    }
+
+    default void visitFloat(float value) {
+    }
+
+    default void visitDouble(double value) {
+    }
+
+    default void visitByteArray(byte[] value) {
+    }
+
+    default void visitString(String value) {
+    }
+
+    default void visitIntArray(int[] value) {
+    }
+
+    default void visitLongArray(long[] value) {
+    }
+
+    default void visitCompoundStart() {
+    }
+
+    /**
+     * Called before the value of each compound entry.
+     *
+     * @param name the entry name
+     * @param type the type of the entry value
+     * @return {@link Result#SKIP} to skip the value
+     */
+    default Result visitCompoundEntry(String name, NbtType<?> type) {
+        return Result.CONTINUE;
+    }
+
+    default void visitCompoundEnd() {
+    }
+
+    /**
+     * Called before the elements of a list.
+     *
+     * @param type the type of the list elements
+     * @param size the number of elements
+     * @return {@link Result#SKIP} to skip all elements
+     */
+    default Result visitListStart(NbtType<?> type, int size) {
+        return Result.CONTINUE;
+    }
+
+    default void visitListEnd() {
+    }
+
+    enum Result {
+        CONTINUE,
+        SKIP
+    }
+}
@@ -0,0 +1,137 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataInput;
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataOutput;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An already encoded value which {@link NBTOutputStream} copies verbatim when it writes the same format, instead of
+ * encoding the value again. This lets the untouched parts of a large tag be passed through without decoding them.
+ * <p>
+ * A raw value can be the root tag or the value of a compound entry, where it stands for a value of its
+ * {@link #getType() type}. The elements of a {@link NbtList} can't be raw since lists are typed by their tag class,
+ * but a whole list can be. Writers of another format, and canonical writers, decode the value and encode it again.
+ * <p>
+ * The bytes are the payload of the value only, without the type id and name which precede it in a compound. They are
+ * not checked, so they must be a complete value of the given type and format.
+ */
+public final class RawNbt {
+    private final NbtFormat format;
+    private final NbtType<?> type;
+    private final byte[] array;
+    private final int offset;
+    private final int length;
+    private int hashCode;
+
+    private RawNbt(NbtFormat format, NbtType<?> type, byte[] array, int offset, int length) {
+        this.format = format;
+        this.type = type;
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Wraps the encoded payload of a value without copying it. The array must not be modified afterwards.
+     */
+    public static RawNbt wrap(NbtFormat format, NbtType<?> type, byte[] payload) {
+        Objects.requireNonNull(payload, "payload");
+        return wrap(format, type, payload, 0, payload.length);
+    }
+
+    public static RawNbt wrap(NbtFormat format, NbtType<?> type, byte[] payload, int offset, int length) {
+        Objects.requireNonNull(format, "format");
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(payload, "payload");
+        if (offset < 0 || length < 0 || offset > payload.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array=" + payload.length);
+        }
+        return new RawNbt(format, type, payload, offset, length);
+    }
+
+    /**
+     * Encodes the payload of a value in the given format.
+     */
+    public static RawNbt encode(NbtFormat format, Object value) throws IOException {
+        Objects.requireNonNull(format, "format");
+        Objects.requireNonNull(value, "value");
+        ByteArrayDataOutput output = ByteArrayDataOutput.create(format);
+        new NBTOutputStream(output).writeValue(value);
+        return new RawNbt(format, NbtType.typeOf(value), output.toByteArray(), 0, output.size());
+    }
+
+    public NbtFormat getFormat() {
+        return format;
+    }
+
+    public NbtType<?> getType() {
+        return type;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(this.array, this.offset, this.offset + this.length);
+    }
+
+    public Object decode() throws IOException {
+        return this.decode(NbtUtils.MAX_DEPTH);
+    }
+
+    public Object decode(int maxDepth) throws IOException {
+        ByteArrayDataInput input = ByteArrayDataInput.create(this.format, this.array, this.offset, this.length);
+        return new NBTInputStream(input).readValue(this.type, maxDepth);
+    }
+
+    void writeTo(DataOutput output) throws IOException {
+        output.write(this.array, this.offset, this.length);
+    }
+
+    /**
+     * Two raw values are equal if they have the same format, type and bytes. A raw value is never equal to a decoded
+     * one.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof RawNbt)) {
+            return false;
+        }
+        RawNbt that = (RawNbt) o;
+        if (this.format != that.format || this.type != that.type || this.length != that.length) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i++) {
+            if (this.array[this.offset + i] != that.array[that.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = this.hashCode;
+        if (result == 0) {
+            result = 31 * this.format.ordinal() + this.type.getId();
+            for (int i = this.offset, end = this.offset + this.length; i < end; i++) {
+                result = 31 * result + this.array[i];
+            }
+            this.hashCode = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RawNbt(type=" + this.type.getTypeName() + ", format=" + this.format + ", length=" + this.length + ")";
+    }
+}
@@ -0,0 +1,131 @@
+package org.cloudburstmc.nbt;
+
+import org.cloudburstmc.nbt.util.stream.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The readers and writers of one format which are reused by a single thread, see {@link NbtUtils#threadLocalReader}.
+ */
+final class ThreadLocalCodecs {
+    private static final int MAX_RETAINED_OUTPUT = 1 << 20;
+    private static final ThreadLocal<ThreadLocalCodecs[]> CODECS =
+            ThreadLocal.withInitial(() -> new ThreadLocalCodecs[NbtFormat.values().length]);
+    private static final NbtKeyEncodingCache KEY_CACHE = new NbtKeyEncodingCache(); // Shared by every thread
+
+    private final NbtFormat format;
+    private final ReusableDataInputStream dataInput = new ReusableDataInputStream(null);
+    private final ReusableDataOutputStream dataOutput = new ReusableDataOutputStream(null);
+    private ByteArrayDataInput arrayInput;
+    private LimitedDataInput streamInput;
+    private DataOutput streamOutput;
+    private NBTInputStream reader;
+    private NBTOutputStream writer;
+    private ByteArrayDataOutput arrayOutput;
+    private NBTOutputStream arrayWriter;
+
+    private ThreadLocalCodecs(NbtFormat format) {
+        this.format = format;
+    }
+
+    static ThreadLocalCodecs get(NbtFormat format) {
+        ThreadLocalCodecs[] codecs = CODECS.get();
+        ThreadLocalCodecs codec = codecs[format.ordinal()];
+        if (codec == null) {
+            codec = codecs[format.ordinal()] = new ThreadLocalCodecs(format);
+        }
+        return codec;
+    }
+
+    NBTInputStream reader(byte[] bytes, int offset, int length) {
+        if (this.arrayInput == null) {
+            this.arrayInput = ByteArrayDataInput.create(this.format, bytes, offset, length);
+        } else {
+            this.arrayInput.reset(bytes, offset, length);
+        }
+        return this.reader(this.arrayInput);
+    }
+
+    NBTInputStream reader(ByteBuffer buffer) {
+        if (this.arrayInput == null) {
+            this.arrayInput = ByteArrayDataInput.create(this.format, new byte[0], 0, 0);
+        }
+        this.arrayInput.reset(buffer);
+        return this.reader(this.arrayInput);
+    }
+
+    NBTInputStream reader(InputStream stream) {
+        this.dataInput.setStream(stream);
+        if (this.streamInput == null) {
+            switch (this.format) {
+                case BIG_ENDIAN:
+                    this.streamInput = new LimitedDataInput(this.dataInput);
+                    break;
+                case LITTLE_ENDIAN:
+                    this.streamInput = new LittleEndianDataInputStream(this.dataInput);
+                    break;
+                case NETWORK:
+                    this.streamInput = new NetworkDataInputStream(this.dataInput);
+                    break;
+            }
+        } else {
+            this.streamInput.reset(this.dataInput);
+        }
+        return this.reader(this.streamInput);
+    }
+
+    private NBTInputStream reader(DataInput input) {
+        if (this.reader == null) {
+            this.reader = new NBTInputStream(input);
+        } else {
+            this.reader.reset(input);
+            // Settings of the previous caller must not leak into the next one
+            this.reader.setReadLimits(NbtReadLimits.UNLIMITED);
+            this.reader.setDecodePool(null);
+        }
+        return this.reader;
+    }
+
+    NBTOutputStream writer(OutputStream stream) {
+        this.dataOutput.setStream(stream);
+        if (this.streamOutput == null) {
+            switch (this.format) {
+                case BIG_ENDIAN:
+                    this.streamOutput = this.dataOutput;
+                    break;
+                case LITTLE_ENDIAN:
+                    this.streamOutput = new LittleEndianDataOutputStream(this.dataOutput);
+                    break;
+                case NETWORK:
+                    this.streamOutput = new NetworkDataOutputStream(this.dataOutput);
+                    break;
+            }
+        }
+        if (this.writer == null) {
+            this.writer = new NBTOutputStream(this.streamOutput, KEY_CACHE);
+        } else {
+            this.writer.reset(this.streamOutput);
+            this.writer.setCanonical(false);
+        }
+        return this.writer;
+    }
+
+    /**
+     * Encodes a named root tag into the output of this thread, which is only valid until the next call.
+     */
+    ByteArrayDataOutput encode(Object tag) throws IOException {
+        if (this.arrayOutput == null || this.arrayOutput.array().length > MAX_RETAINED_OUTPUT) {
+            // Don't hold on to the array of an unusually large tag
+            this.arrayOutput = ByteArrayDataOutput.create(this.format);
+            this.arrayWriter = new NBTOutputStream(this.arrayOutput, KEY_CACHE);
+        }
+        this.arrayOutput.reset();
+        this.arrayWriter.writeTag(tag);
+        return this.arrayOutput;
+    }
+}
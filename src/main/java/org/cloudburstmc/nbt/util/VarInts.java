@@ -3,6 +3,8 @@ package org.cloudburstmc.nbt.util;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 public class VarInts {
     private VarInts() {
@@ -42,105 +44,236 @@ public class VarInts {
         return decode(buffer, 64);
     }
 
+    /**
+     * Writes a signed VarInt into the array, which must have room for 5 bytes from {@code index}.
+     *
+     * @return the index right after the VarInt
+     */
+    public static int writeInt(byte[] buffer, int index, int value) {
+        return encode(buffer, index, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    public static int writeUnsignedInt(byte[] buffer, int index, long value) {
+        return encode(buffer, index, value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a signed VarLong into the array, which must have room for 10 bytes from {@code index}.
+     *
+     * @return the index right after the VarLong
+     */
+    public static int writeLong(byte[] buffer, int index, long value) {
+        return encode(buffer, index, (value << 1) ^ (value >> 63));
+    }
+
+    public static int writeUnsignedLong(byte[] buffer, int index, long value) {
+        return encode(buffer, index, value);
+    }
+
+    /**
+     * Writes signed VarInts for a range of ints, for which the array must have room for 5 bytes per int.
+     *
+     * @return the index right after the last VarInt
+     */
+    public static int writeInts(byte[] buffer, int index, int[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = values[i];
+            index = encode(buffer, index, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+        return index;
+    }
+
+    /**
+     * Writes signed VarLongs for a range of longs, for which the array must have room for 10 bytes per long.
+     *
+     * @return the index right after the last VarLong
+     */
+    public static int writeLongs(byte[] buffer, int index, long[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            long value = values[i];
+            index = encode(buffer, index, (value << 1) ^ (value >> 63));
+        }
+        return index;
+    }
+
+    public static void writeInt(ByteBuffer buffer, int value) {
+        encode(buffer, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    public static int readInt(ByteBuffer buffer) {
+        int n = (int) decode(buffer, 32);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    public static void writeUnsignedInt(ByteBuffer buffer, long value) {
+        encode(buffer, value & 0xFFFFFFFFL);
+    }
+
+    public static int readUnsignedInt(ByteBuffer buffer) {
+        return (int) decode(buffer, 32);
+    }
+
+    public static void writeLong(ByteBuffer buffer, long value) {
+        encode(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readLong(ByteBuffer buffer) {
+        long n = decode(buffer, 64);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    public static void writeUnsignedLong(ByteBuffer buffer, long value) {
+        encode(buffer, value);
+    }
+
+    public static long readUnsignedLong(ByteBuffer buffer) {
+        return decode(buffer, 64);
+    }
+
+    public static void writeInts(ByteBuffer buffer, int[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeInt(buffer, values[i]);
+        }
+    }
+
+    public static void readInts(ByteBuffer buffer, int[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            values[i] = readInt(buffer);
+        }
+    }
+
+    public static void writeLongs(ByteBuffer buffer, long[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeLong(buffer, values[i]);
+        }
+    }
+
+    public static void readLongs(ByteBuffer buffer, long[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            values[i] = readLong(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of bytes the unsigned VarInt or VarLong of a value takes.
+     */
+    public static int unsignedSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    private static void encode(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7FL | 0x80L));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
     // Based off of Andrew Steinborn's blog post:
     // https://steinborn.me/posts/performance/how-fast-can-you-write-a-varint/
-    private static void encode(DataOutput out, long value) throws IOException {
+    private static int encode(byte[] buffer, int index, long value) {
         // Peel the one and two byte count cases explicitly as they are the most common VarInt sizes
         // that the server will write, to improve inlining.
         if ((value & ~0x7FL) == 0) {
-            out.writeByte((byte) value);
+            buffer[index] = (byte) value;
+            return index + 1;
         } else if ((value & ~0x3FFFL) == 0) {
-            byte[] bytes = {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) (value >>> 7)
-            };
-            out.write(bytes);
-        } else {
-            encodeFull(out, value);
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) (value >>> 7);
+            return index + 2;
         }
+        return encodeFull(buffer, index, value);
     }
 
     @SuppressWarnings({"DuplicatedCode"})
-    private static void encodeFull(DataOutput out, long value) throws IOException {
-        byte[] bytes;
+    private static int encodeFull(byte[] buffer, int index, long value) {
         if ((value & ~0x1FFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) (value >>> 14)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) (value >>> 14);
+            return index + 3;
         } else if ((value & ~0xFFFFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) (value >>> 21)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) (value >>> 21);
+            return index + 4;
         } else if ((value & ~0x7FFFFFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 21) & 0x7FL | 0x80L),
-                    (byte) (value >>> 28)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) ((value >>> 21) & 0x7FL | 0x80L);
+            buffer[index + 4] = (byte) (value >>> 28);
+            return index + 5;
         } else if ((value & ~0x3FFFFFFFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 21) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 28) & 0x7FL | 0x80L),
-                    (byte) (value >>> 35)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) ((value >>> 21) & 0x7FL | 0x80L);
+            buffer[index + 4] = (byte) ((value >>> 28) & 0x7FL | 0x80L);
+            buffer[index + 5] = (byte) (value >>> 35);
+            return index + 6;
         } else if ((value & ~0x1FFFFFFFFFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 21) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 28) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 35) & 0x7FL | 0x80L),
-                    (byte) (value >>> 42)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) ((value >>> 21) & 0x7FL | 0x80L);
+            buffer[index + 4] = (byte) ((value >>> 28) & 0x7FL | 0x80L);
+            buffer[index + 5] = (byte) ((value >>> 35) & 0x7FL | 0x80L);
+            buffer[index + 6] = (byte) (value >>> 42);
+            return index + 7;
         } else if ((value & ~0xFFFFFFFFFFFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 21) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 28) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 35) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 42) & 0x7FL | 0x80L),
-                    (byte) (value >>> 49)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) ((value >>> 21) & 0x7FL | 0x80L);
+            buffer[index + 4] = (byte) ((value >>> 28) & 0x7FL | 0x80L);
+            buffer[index + 5] = (byte) ((value >>> 35) & 0x7FL | 0x80L);
+            buffer[index + 6] = (byte) ((value >>> 42) & 0x7FL | 0x80L);
+            buffer[index + 7] = (byte) (value >>> 49);
+            return index + 8;
         } else if ((value & ~0x7FFFFFFFFFFFFFFFL) == 0) {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 21) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 28) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 35) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 42) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 49) & 0x7FL | 0x80L),
-                    (byte) (value >>> 56)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) ((value >>> 21) & 0x7FL | 0x80L);
+            buffer[index + 4] = (byte) ((value >>> 28) & 0x7FL | 0x80L);
+            buffer[index + 5] = (byte) ((value >>> 35) & 0x7FL | 0x80L);
+            buffer[index + 6] = (byte) ((value >>> 42) & 0x7FL | 0x80L);
+            buffer[index + 7] = (byte) ((value >>> 49) & 0x7FL | 0x80L);
+            buffer[index + 8] = (byte) (value >>> 56);
+            return index + 9;
         } else {
-            bytes = new byte[] {
-                    (byte) (value & 0x7FL | 0x80L),
-                    (byte) ((value >>> 7) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 14) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 21) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 28) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 35) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 42) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 49) & 0x7FL | 0x80L),
-                    (byte) ((value >>> 56) & 0x7FL | 0x80L),
-                    (byte) (value >>> 63)
-            };
+            buffer[index] = (byte) (value & 0x7FL | 0x80L);
+            buffer[index + 1] = (byte) ((value >>> 7) & 0x7FL | 0x80L);
+            buffer[index + 2] = (byte) ((value >>> 14) & 0x7FL | 0x80L);
+            buffer[index + 3] = (byte) ((value >>> 21) & 0x7FL | 0x80L);
+            buffer[index + 4] = (byte) ((value >>> 28) & 0x7FL | 0x80L);
+            buffer[index + 5] = (byte) ((value >>> 35) & 0x7FL | 0x80L);
+            buffer[index + 6] = (byte) ((value >>> 42) & 0x7FL | 0x80L);
+            buffer[index + 7] = (byte) ((value >>> 49) & 0x7FL | 0x80L);
+            buffer[index + 8] = (byte) ((value >>> 56) & 0x7FL | 0x80L);
+            buffer[index + 9] = (byte) (value >>> 63);
+            return index + 10;
+        }
+    }
+
+    private static void encode(ByteBuffer buffer, long value) {
+        int size = unsignedSize(value);
+        if (buffer.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        if (buffer.hasArray()) {
+            int position = buffer.position();
+            int index = buffer.arrayOffset() + position;
+            buffer.position(position + encode(buffer.array(), index, value) - index);
+            return;
+        }
+        for (int i = 1; i < size; i++) {
+            buffer.put((byte) (value & 0x7FL | 0x80L));
+            value >>>= 7;
         }
-        out.write(bytes);
+        buffer.put((byte) value);
     }
 
     private static long decode(DataInput buffer, int maxBits) throws IOException {
@@ -154,4 +287,20 @@ public class VarInts {
         }
         throw new ArithmeticException("VarInt was too large");
     }
+
+    private static long decode(ByteBuffer buffer, int maxBits) {
+        byte b = buffer.get();
+        if (b >= 0) {
+            return b; // Single byte VarInts are the most common
+        }
+        long result = b & 0x7FL;
+        for (int shift = 7; shift < maxBits; shift += 7) {
+            b = buffer.get();
+            result |= (b & 0x7FL) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ArithmeticException("VarInt was too large");
+    }
 }
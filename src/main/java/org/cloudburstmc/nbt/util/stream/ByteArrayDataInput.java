@@ -0,0 +1,287 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.cloudburstmc.nbt.NbtFormat;
+import org.cloudburstmc.nbt.NbtKeyDictionary;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A big-endian {@link DataInput} which decodes directly from a byte array.
+ * <p>
+ * Every primitive is bounds checked once and then assembled from the array, so there is no per-byte dispatch to an
+ * underlying stream. Heap {@link ByteBuffer}s are read without copying, other buffers are copied once on construction.
+ * The position of the source buffer is never modified, use {@link #position()} to find out how much has been read.
+ */
+public class ByteArrayDataInput implements NbtDataInput {
+    protected byte[] array;
+    protected int limit;
+    protected int position;
+
+    public ByteArrayDataInput(byte[] array) {
+        this(array, 0, array.length);
+    }
+
+    public ByteArrayDataInput(byte[] array, int offset, int length) {
+        this.reset(array, offset, length);
+    }
+
+    public ByteArrayDataInput(ByteBuffer buffer) {
+        this.reset(buffer);
+    }
+
+    /**
+     * Starts reading from the given range of a new array, as if this input had just been created with it.
+     */
+    public final void reset(byte[] array, int offset, int length) {
+        Objects.requireNonNull(array, "array");
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array=" + array.length);
+        }
+        this.array = array;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Starts reading from the remaining bytes of a new buffer, as if this input had just been created with it.
+     * Buffers without an accessible array are still copied.
+     */
+    public final void reset(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer");
+        if (buffer.hasArray()) {
+            this.array = buffer.array();
+            this.position = buffer.arrayOffset() + buffer.position();
+            this.limit = buffer.arrayOffset() + buffer.limit();
+        } else {
+            // Never reuse the old array, lazily decoded maps may still refer to it
+            byte[] array = new byte[buffer.remaining()];
+            buffer.duplicate().get(array);
+            this.array = array;
+            this.position = 0;
+            this.limit = array.length;
+        }
+    }
+
+    public static ByteArrayDataInput create(NbtFormat format, byte[] array, int offset, int length) {
+        switch (format) {
+            case BIG_ENDIAN:
+                return new ByteArrayDataInput(array, offset, length);
+            case LITTLE_ENDIAN:
+                return new LittleEndianByteArrayDataInput(array, offset, length);
+            case NETWORK:
+                return new NetworkByteArrayDataInput(array, offset, length);
+        }
+        throw new IllegalArgumentException("Unknown format " + format);
+    }
+
+    /**
+     * Reserves {@code size} bytes for reading.
+     *
+     * @return the array index of the first reserved byte
+     */
+    protected final int advance(int size) throws EOFException {
+        int position = this.position;
+        if (size < 0 || size > this.limit - position) {
+            throw new EOFException("Tried to read " + size + " bytes, but only " + (this.limit - position) + " are remaining");
+        }
+        this.position = position + size;
+        return position;
+    }
+
+    public NbtFormat format() {
+        return NbtFormat.BIG_ENDIAN;
+    }
+
+    public byte[] array() {
+        return this.array;
+    }
+
+    public int position() {
+        return this.position;
+    }
+
+    public int remaining() {
+        return this.limit - this.position;
+    }
+
+    @Override
+    public void readFully(byte @NonNull [] b) throws IOException {
+        this.readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte @NonNull [] b, int off, int len) throws IOException {
+        System.arraycopy(this.array, this.advance(len), b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, this.limit - this.position));
+        this.position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return this.readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return this.array[this.advance(1)];
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return this.array[this.advance(1)] & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        int i = this.advance(2);
+        return (short) ((this.array[i] << 8) | (this.array[i + 1] & 0xFF));
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return this.readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) this.readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return this.getIntBE(this.advance(4));
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return this.getLongBE(this.advance(8));
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(this.readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(this.readLong());
+    }
+
+    @Override
+    public String readLine() {
+        if (this.position >= this.limit) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        while (this.position < this.limit) {
+            char c = (char) (this.array[this.position++] & 0xFF);
+            if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (this.position < this.limit && this.array[this.position] == '\n') {
+                    this.position++;
+                }
+                break;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    @NonNull
+    @Override
+    public String readUTF() throws IOException {
+        int length = this.readUTFLength();
+        return this.decodeUTF(this.advance(length), length);
+    }
+
+    @Override
+    public String readUTF(NbtKeyDictionary dictionary) throws IOException {
+        int length = this.readUTFLength();
+        int index = this.advance(length);
+        String utf = dictionary.lookup(this.array, index, length);
+        return utf != null ? utf : this.decodeUTF(index, length);
+    }
+
+    /**
+     * Reads the length prefix of a string.
+     */
+    protected int readUTFLength() throws IOException {
+        return this.readUnsignedShort();
+    }
+
+    /**
+     * Decodes the bytes of a string which were reserved after its length prefix.
+     */
+    protected String decodeUTF(int index, int length) throws IOException {
+        return Utf8.decodeModified(this.array, index, length);
+    }
+
+    @Override
+    public void skipFully(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot skip " + n + " bytes");
+        }
+        this.advance((int) Math.min(n, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public void skipUTF() throws IOException {
+        this.advance(this.readUTFLength());
+    }
+
+    @Override
+    public void skipInts(int count) throws IOException {
+        this.skipFully(4L * count);
+    }
+
+    @Override
+    public void skipLongs(int count) throws IOException {
+        this.skipFully(8L * count);
+    }
+
+    @Override
+    public void readInts(int[] array, int offset, int length) throws IOException {
+        int index = this.advance((int) Math.min(4L * length, Integer.MAX_VALUE));
+        ByteBuffer.wrap(this.array, index, length * 4).order(this.byteOrder()).asIntBuffer().get(array, offset, length);
+    }
+
+    @Override
+    public void readLongs(long[] array, int offset, int length) throws IOException {
+        int index = this.advance((int) Math.min(8L * length, Integer.MAX_VALUE));
+        ByteBuffer.wrap(this.array, index, length * 8).order(this.byteOrder()).asLongBuffer().get(array, offset, length);
+    }
+
+    protected ByteOrder byteOrder() {
+        return ByteOrder.BIG_ENDIAN;
+    }
+
+    protected final int getIntBE(int i) {
+        byte[] array = this.array;
+        return (array[i] << 24) | ((array[i + 1] & 0xFF) << 16) | ((array[i + 2] & 0xFF) << 8) | (array[i + 3] & 0xFF);
+    }
+
+    protected final long getLongBE(int i) {
+        return ((long) this.getIntBE(i) << 32) | (this.getIntBE(i + 4) & 0xFFFFFFFFL);
+    }
+
+    protected final int getIntLE(int i) {
+        byte[] array = this.array;
+        return (array[i] & 0xFF) | ((array[i + 1] & 0xFF) << 8) | ((array[i + 2] & 0xFF) << 16) | (array[i + 3] << 24);
+    }
+
+    protected final long getLongLE(int i) {
+        return (this.getIntLE(i) & 0xFFFFFFFFL) | ((long) this.getIntLE(i + 4) << 32);
+    }
+}
@@ -0,0 +1,313 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.cloudburstmc.nbt.NbtFormat;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A big-endian {@link DataOutput} which encodes directly into a growable byte array.
+ * <p>
+ * Every primitive reserves its bytes once and then stores them into the array, so there is no per-byte dispatch to an
+ * underlying stream. The encoded bytes can be copied out with {@link #toByteArray()} or {@link #writeTo(ByteBuffer)},
+ * and {@link #reset()} discards them so that the array is reused for the next message.
+ */
+public class ByteArrayDataOutput implements NbtDataOutput {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    protected byte[] array;
+    protected int position;
+
+    public ByteArrayDataOutput() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ByteArrayDataOutput(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity " + initialCapacity);
+        }
+        this.array = new byte[initialCapacity];
+    }
+
+    public static ByteArrayDataOutput create(NbtFormat format) {
+        return create(format, DEFAULT_CAPACITY);
+    }
+
+    public static ByteArrayDataOutput create(NbtFormat format, int initialCapacity) {
+        switch (format) {
+            case BIG_ENDIAN:
+                return new ByteArrayDataOutput(initialCapacity);
+            case LITTLE_ENDIAN:
+                return new LittleEndianByteArrayDataOutput(initialCapacity);
+            case NETWORK:
+                return new NetworkByteArrayDataOutput(initialCapacity);
+        }
+        throw new IllegalArgumentException("Unknown format " + format);
+    }
+
+    /**
+     * Reserves {@code size} bytes for writing, growing the array if needed.
+     *
+     * @return the array index of the first reserved byte
+     */
+    protected final int reserve(int size) {
+        if (size > this.array.length - this.position) {
+            this.makeRoom(size);
+        }
+        int position = this.position;
+        this.position = position + size;
+        return position;
+    }
+
+    /**
+     * Makes room for at least {@code size} bytes after the current position by growing the array. Subclasses may
+     * consume the bytes written so far instead, moving the position back.
+     */
+    protected void makeRoom(int size) {
+        long required = (long) this.position + size;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Required array size too large: " + required);
+        }
+        long capacity = Math.max(required, Math.min(this.array.length * 2L, Integer.MAX_VALUE - 8));
+        this.array = Arrays.copyOf(this.array, (int) capacity);
+    }
+
+    public NbtFormat format() {
+        return NbtFormat.BIG_ENDIAN;
+    }
+
+    /**
+     * Returns the backing array, of which the first {@link #size()} bytes have been written.
+     */
+    public byte[] array() {
+        return this.array;
+    }
+
+    public int size() {
+        return this.position;
+    }
+
+    /**
+     * Discards everything written so far, keeping the array for the next message.
+     */
+    public void reset() {
+        this.position = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.array, this.position);
+    }
+
+    /**
+     * Returns a buffer which wraps the written bytes without copying them. It is only valid until the next write.
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(this.array, 0, this.position);
+    }
+
+    /**
+     * Copies the written bytes into the given buffer, advancing its position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(this.array, 0, this.position);
+    }
+
+    @Override
+    public void write(int b) {
+        int i = this.reserve(1);
+        this.array[i] = (byte) b;
+    }
+
+    @Override
+    public void write(byte @NonNull [] b) {
+        this.write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte @NonNull [] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException("offset=" + off + ", length=" + len + ", array=" + b.length);
+        }
+        int i = this.reserve(len);
+        System.arraycopy(b, off, this.array, i, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        this.write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        this.write(v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        int i = this.reserve(2);
+        this.array[i] = (byte) (v >>> 8);
+        this.array[i + 1] = (byte) v;
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        this.writeShort(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        this.putIntBE(this.reserve(4), v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        this.putLongBE(this.reserve(8), v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        this.writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        this.writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeBytes(@NonNull String s) {
+        int length = s.length();
+        int index = this.reserve(length);
+        for (int i = 0; i < length; i++) {
+            this.array[index + i] = (byte) s.charAt(i);
+        }
+    }
+
+    @Override
+    public void writeChars(@NonNull String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            this.writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(@NonNull String s) throws IOException {
+        int length = s.length();
+        int encodedLength = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == 0 || c >= 0x80) {
+                encodedLength += c >= 0x800 ? 2 : 1;
+            }
+        }
+        if (encodedLength > 0xFFFF) {
+            throw new UTFDataFormatException("Encoded string is too long: " + encodedLength + " bytes");
+        }
+        this.writeShort(encodedLength);
+
+        int index = this.reserve(encodedLength);
+        byte[] array = this.array;
+        if (encodedLength == length) {
+            for (int i = 0; i < length; i++) {
+                array[index++] = (byte) s.charAt(i);
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c != 0 && c < 0x80) {
+                array[index++] = (byte) c;
+            } else if (c < 0x800) {
+                array[index++] = (byte) (0xC0 | (c >> 6));
+                array[index++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                array[index++] = (byte) (0xE0 | (c >> 12));
+                array[index++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                array[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    @Override
+    public void writeInts(int[] array, int offset, int length) throws IOException {
+        int index = this.reserve(Math.multiplyExact(length, 4));
+        ByteBuffer.wrap(this.array, index, length * 4).order(this.byteOrder()).asIntBuffer().put(array, offset, length);
+    }
+
+    @Override
+    public void writeLongs(long[] array, int offset, int length) throws IOException {
+        int index = this.reserve(Math.multiplyExact(length, 8));
+        ByteBuffer.wrap(this.array, index, length * 8).order(this.byteOrder()).asLongBuffer().put(array, offset, length);
+    }
+
+    protected ByteOrder byteOrder() {
+        return ByteOrder.BIG_ENDIAN;
+    }
+
+    /**
+     * Writes the standard UTF-8 encoding of a string, which is preceded by its length as written by
+     * {@link #writeUTFLength(int)}.
+     */
+    protected final void writeStandardUTF(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                this.writeUTFLength(bytes.length);
+                this.write(bytes);
+                return;
+            }
+        }
+        // Plain ASCII is encoded one byte per char
+        this.writeUTFLength(length);
+        int index = this.reserve(length);
+        byte[] array = this.array;
+        for (int i = 0; i < length; i++) {
+            array[index + i] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * Writes the length prefix of a string.
+     */
+    protected void writeUTFLength(int length) throws IOException {
+        if (length > 0xFFFF) {
+            throw new UTFDataFormatException("Encoded string is too long: " + length + " bytes");
+        }
+        this.writeShort(length);
+    }
+
+    protected final void putIntBE(int i, int v) {
+        byte[] array = this.array;
+        array[i] = (byte) (v >>> 24);
+        array[i + 1] = (byte) (v >>> 16);
+        array[i + 2] = (byte) (v >>> 8);
+        array[i + 3] = (byte) v;
+    }
+
+    protected final void putLongBE(int i, long v) {
+        this.putIntBE(i, (int) (v >>> 32));
+        this.putIntBE(i + 4, (int) v);
+    }
+
+    protected final void putIntLE(int i, int v) {
+        byte[] array = this.array;
+        array[i] = (byte) v;
+        array[i + 1] = (byte) (v >>> 8);
+        array[i + 2] = (byte) (v >>> 16);
+        array[i + 3] = (byte) (v >>> 24);
+    }
+
+    protected final void putLongLE(int i, long v) {
+        this.putIntLE(i, (int) v);
+        this.putIntLE(i + 4, (int) (v >>> 32));
+    }
+}
@@ -1,17 +1,24 @@
 package org.cloudburstmc.nbt.util.stream;
 
+import org.cloudburstmc.nbt.NbtKeyDictionary;
 import org.cloudburstmc.nbt.NbtUtils;
 
 import java.io.Closeable;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
 
-public class LimitedDataInput implements DataInput, Closeable {
+public class LimitedDataInput implements NbtDataInput, Closeable {
+    private static final int SCRATCH_SIZE = 8192;
 
-    private final DataInput delegate;
+    private DataInput delegate;
     private final long maxReadSize;
 
     private long readSize = 0;
+    private byte[] scratch;
 
     public LimitedDataInput(DataInput delegate) {
         this(delegate, NbtUtils.MAX_READ_SIZE);
@@ -22,6 +29,21 @@ public class LimitedDataInput implements DataInput, Closeable {
         this.maxReadSize = maxReadSize;
     }
 
+    /**
+     * Starts reading from a new delegate with a fresh read size, keeping the limit and scratch buffer of this input.
+     */
+    public void reset(DataInput delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.readSize = 0;
+    }
+
+    /**
+     * Starts counting the read size from zero again, for example at the start of the next of several messages.
+     */
+    public void resetReadSize() {
+        this.readSize = 0;
+    }
+
     @Override
     public void close() throws IOException {
         if (delegate instanceof Closeable) {
@@ -123,9 +145,129 @@ public class LimitedDataInput implements DataInput, Closeable {
 
     @Override
     public String readUTF() throws IOException {
-        String utf = this.delegate.readUTF();
-        this.tryRead(utf.length()); // not ideal, but we do not have a better way to estimate the size
-        return utf;
+        int length = this.readUTFLength();
+        return this.decodeUTF(this.readUTFBytes(length), 0, length);
+    }
+
+    @Override
+    public String readUTF(NbtKeyDictionary dictionary) throws IOException {
+        int length = this.readUTFLength();
+        byte[] bytes = this.readUTFBytes(length);
+        String utf = dictionary.lookup(bytes, 0, length);
+        return utf != null ? utf : this.decodeUTF(bytes, 0, length);
+    }
+
+    /**
+     * Reads the length prefix of a string.
+     */
+    protected int readUTFLength() throws IOException {
+        return this.readUnsignedShort();
+    }
+
+    /**
+     * Reads the bytes of a string into the scratch buffer, or a new array if it does not fit.
+     */
+    private byte[] readUTFBytes(int length) throws IOException {
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        this.tryRead(length); // do it here, so we do not allocate a buffer for an oversized string
+        byte[] bytes = length <= SCRATCH_SIZE ? this.scratch() : new byte[length];
+        this.delegate.readFully(bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Decodes the bytes of a string which were read after its length prefix.
+     */
+    protected String decodeUTF(byte[] bytes, int offset, int length) throws IOException {
+        return Utf8.decodeModified(bytes, offset, length);
+    }
+
+    @Override
+    public void skipFully(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot skip " + n + " bytes");
+        }
+        while (n > 0) {
+            int count = (int) Math.min(n, Integer.MAX_VALUE);
+            this.tryRead(count);
+            n -= count;
+            while (count > 0) {
+                int skipped = this.delegate.skipBytes(count);
+                if (skipped <= 0) {
+                    this.delegate.readByte(); // skipBytes gives up at the end of the stream, readByte throws instead
+                    skipped = 1;
+                }
+                count -= skipped;
+            }
+        }
+    }
+
+    @Override
+    public void skipUTF() throws IOException {
+        this.skipFully(this.readUnsignedShort());
+    }
+
+    @Override
+    public void skipInts(int count) throws IOException {
+        this.skipFully(4L * count);
+    }
+
+    @Override
+    public void skipLongs(int count) throws IOException {
+        this.skipFully(8L * count);
+    }
+
+    @Override
+    public void readInts(int[] array, int offset, int length) throws IOException {
+        if (!(this.delegate instanceof DataInputStream)) {
+            // Only DataInputStream is guaranteed to encode ints the way we expect
+            for (int i = offset; i < offset + length; i++) {
+                array[i] = this.readInt();
+            }
+            return;
+        }
+        byte[] scratch = this.scratch();
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, scratch.length / 4);
+            this.readFully(scratch, 0, count * 4);
+            ByteBuffer.wrap(scratch, 0, count * 4).order(this.byteOrder()).asIntBuffer().get(array, offset, count);
+            offset += count;
+        }
+    }
+
+    @Override
+    public void readLongs(long[] array, int offset, int length) throws IOException {
+        if (!(this.delegate instanceof DataInputStream)) {
+            for (int i = offset; i < offset + length; i++) {
+                array[i] = this.readLong();
+            }
+            return;
+        }
+        byte[] scratch = this.scratch();
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, scratch.length / 8);
+            this.readFully(scratch, 0, count * 8);
+            ByteBuffer.wrap(scratch, 0, count * 8).order(this.byteOrder()).asLongBuffer().get(array, offset, count);
+            offset += count;
+        }
+    }
+
+    /**
+     * The byte order used by {@link #readInts(int[], int, int)} and {@link #readLongs(long[], int, int)} to convert the delegate's bytes.
+     */
+    protected ByteOrder byteOrder() {
+        return ByteOrder.BIG_ENDIAN;
+    }
+
+    protected byte[] scratch() {
+        if (this.scratch == null) {
+            this.scratch = new byte[SCRATCH_SIZE];
+        }
+        return this.scratch;
     }
 
     public DataInput delegate() {
@@ -0,0 +1,63 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.cloudburstmc.nbt.NbtFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class LittleEndianByteArrayDataInput extends ByteArrayDataInput {
+
+    public LittleEndianByteArrayDataInput(byte[] array) {
+        super(array);
+    }
+
+    public LittleEndianByteArrayDataInput(byte[] array, int offset, int length) {
+        super(array, offset, length);
+    }
+
+    public LittleEndianByteArrayDataInput(ByteBuffer buffer) {
+        super(buffer);
+    }
+
+    @Override
+    public NbtFormat format() {
+        return NbtFormat.LITTLE_ENDIAN;
+    }
+
+    @Override
+    protected ByteOrder byteOrder() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        int i = this.advance(2);
+        return (short) ((this.array[i] & 0xFF) | (this.array[i + 1] << 8));
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return this.getIntLE(this.advance(4));
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return this.getLongLE(this.advance(8));
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(this.getIntLE(this.advance(4)));
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(this.getLongLE(this.advance(8)));
+    }
+
+    @Override
+    protected String decodeUTF(int index, int length) {
+        return Utf8.decode(this.array, index, length);
+    }
+}
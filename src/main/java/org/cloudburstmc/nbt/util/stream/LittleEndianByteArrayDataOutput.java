@@ -0,0 +1,62 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.cloudburstmc.nbt.NbtFormat;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+public class LittleEndianByteArrayDataOutput extends ByteArrayDataOutput {
+
+    public LittleEndianByteArrayDataOutput() {
+        super();
+    }
+
+    public LittleEndianByteArrayDataOutput(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public NbtFormat format() {
+        return NbtFormat.LITTLE_ENDIAN;
+    }
+
+    @Override
+    protected ByteOrder byteOrder() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        int i = this.reserve(2);
+        this.array[i] = (byte) v;
+        this.array[i + 1] = (byte) (v >>> 8);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        this.putIntLE(this.reserve(4), v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        this.putLongLE(this.reserve(8), v);
+    }
+
+    // Floating point values stay fixed size in the network format, so they must not go through writeInt/writeLong
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        this.putIntLE(this.reserve(4), Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        this.putLongLE(this.reserve(8), Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeUTF(@NonNull String s) throws IOException {
+        this.writeStandardUTF(s);
+    }
+}
@@ -1,10 +1,9 @@
 package org.cloudburstmc.nbt.util.stream;
 
-import org.checkerframework.checker.nullness.qual.NonNull;
 import org.cloudburstmc.nbt.NbtUtils;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteOrder;
 
 public class LittleEndianDataInputStream extends LimitedDataInput {
 
@@ -66,14 +65,13 @@ public class LittleEndianDataInputStream extends LimitedDataInput {
         return Double.longBitsToDouble(Long.reverseBytes(this.delegate().readLong()));
     }
 
-    @NonNull
     @Override
-    public String readUTF() throws IOException {
-        int size = this.readUnsignedShort();
-        this.tryRead(size + 4); // do it here, so we do not preallocate the buffer
+    protected ByteOrder byteOrder() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
 
-        byte[] bytes = new byte[size];
-        this.readFully(bytes);
-        return new String(bytes, StandardCharsets.UTF_8);
+    @Override
+    protected String decodeUTF(byte[] bytes, int offset, int length) {
+        return Utf8.decode(bytes, offset, length);
     }
 }
@@ -3,10 +3,15 @@ package org.cloudburstmc.nbt.util.stream;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
-public class LittleEndianDataOutputStream implements DataOutput, Closeable {
+public class LittleEndianDataOutputStream implements NbtDataOutput, Closeable {
+    private static final int SCRATCH_SIZE = 8192;
+
     protected final DataOutputStream stream;
+    private byte[] scratch;
 
     public LittleEndianDataOutputStream(OutputStream stream) {
         this.stream = new DataOutputStream(stream);
@@ -92,4 +97,35 @@ public class LittleEndianDataOutputStream implements DataOutput, Closeable {
         this.writeShort(bytes.length);
         this.write(bytes);
     }
+
+    @Override
+    public void writeInts(int[] array, int offset, int length) throws IOException {
+        byte[] scratch = this.scratch();
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, scratch.length / 4);
+            ByteBuffer.wrap(scratch, 0, count * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(array, offset, count);
+            this.stream.write(scratch, 0, count * 4);
+            offset += count;
+        }
+    }
+
+    @Override
+    public void writeLongs(long[] array, int offset, int length) throws IOException {
+        byte[] scratch = this.scratch();
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, scratch.length / 8);
+            ByteBuffer.wrap(scratch, 0, count * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(array, offset, count);
+            this.stream.write(scratch, 0, count * 8);
+            offset += count;
+        }
+    }
+
+    protected byte[] scratch() {
+        if (this.scratch == null) {
+            this.scratch = new byte[SCRATCH_SIZE];
+        }
+        return this.scratch;
+    }
 }
@@ -0,0 +1,58 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.cloudburstmc.nbt.NbtKeyDictionary;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * A {@link DataInput} which knows how its NBT format encodes strings and integers, so that values can be skipped
+ * without being decoded.
+ */
+public interface NbtDataInput extends DataInput {
+
+    /**
+     * Skips exactly {@code n} bytes.
+     *
+     * @throws java.io.EOFException if the input ends first
+     */
+    void skipFully(long n) throws IOException;
+
+    /**
+     * Reads a string like {@link #readUTF()}, but returns the dictionary's copy if its encoded bytes are in there.
+     */
+    String readUTF(NbtKeyDictionary dictionary) throws IOException;
+
+    /**
+     * Skips a string as it would be read by {@link #readUTF()}.
+     */
+    void skipUTF() throws IOException;
+
+    /**
+     * Skips {@code count} ints as they would be read by {@link #readInt()}.
+     */
+    void skipInts(int count) throws IOException;
+
+    /**
+     * Skips {@code count} longs as they would be read by {@link #readLong()}.
+     */
+    void skipLongs(int count) throws IOException;
+
+    /**
+     * Fills the array with ints as they would be read by {@link #readInt()}.
+     */
+    default void readInts(int[] array) throws IOException {
+        this.readInts(array, 0, array.length);
+    }
+
+    void readInts(int[] array, int offset, int length) throws IOException;
+
+    /**
+     * Fills the array with longs as they would be read by {@link #readLong()}.
+     */
+    default void readLongs(long[] array) throws IOException {
+        this.readLongs(array, 0, array.length);
+    }
+
+    void readLongs(long[] array, int offset, int length) throws IOException;
+}
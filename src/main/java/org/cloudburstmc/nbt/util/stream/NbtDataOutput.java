@@ -0,0 +1,28 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link DataOutput} which knows how its NBT format encodes integers, so that whole arrays can be encoded at once.
+ */
+public interface NbtDataOutput extends DataOutput {
+
+    /**
+     * Writes the ints of the array as {@link #writeInt(int)} would write them one by one.
+     */
+    default void writeInts(int[] array) throws IOException {
+        this.writeInts(array, 0, array.length);
+    }
+
+    void writeInts(int[] array, int offset, int length) throws IOException;
+
+    /**
+     * Writes the longs of the array as {@link #writeLong(long)} would write them one by one.
+     */
+    default void writeLongs(long[] array) throws IOException {
+        this.writeLongs(array, 0, array.length);
+    }
+
+    void writeLongs(long[] array, int offset, int length) throws IOException;
+}
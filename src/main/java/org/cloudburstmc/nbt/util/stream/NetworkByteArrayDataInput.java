@@ -0,0 +1,92 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.cloudburstmc.nbt.NbtFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class NetworkByteArrayDataInput extends LittleEndianByteArrayDataInput {
+
+    public NetworkByteArrayDataInput(byte[] array) {
+        super(array);
+    }
+
+    public NetworkByteArrayDataInput(byte[] array, int offset, int length) {
+        super(array, offset, length);
+    }
+
+    public NetworkByteArrayDataInput(ByteBuffer buffer) {
+        super(buffer);
+    }
+
+    @Override
+    public NbtFormat format() {
+        return NbtFormat.NETWORK;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int n = (int) this.readVarInt(32);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        long n = this.readVarInt(64);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    @Override
+    protected int readUTFLength() throws IOException {
+        return (int) this.readVarInt(32);
+    }
+
+    @Override
+    public void readInts(int[] array, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            array[i] = this.readInt();
+        }
+    }
+
+    @Override
+    public void readLongs(long[] array, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            array[i] = this.readLong();
+        }
+    }
+
+    @Override
+    public void skipInts(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            this.readVarInt(32);
+        }
+    }
+
+    @Override
+    public void skipLongs(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            this.readVarInt(64);
+        }
+    }
+
+    protected final long readVarInt(int maxBits) throws IOException {
+        byte[] array = this.array;
+        int i = this.position;
+        // A VarInt is at most 10 bytes, so only check bounds per byte when we are close to the end
+        boolean checked = this.limit - i < 10;
+        long result = 0;
+        for (int shift = 0; shift < maxBits; shift += 7) {
+            if (checked && i >= this.limit) {
+                throw new EOFException("Reached end of input while reading VarInt");
+            }
+            byte b = array[i++];
+            result |= (b & 0x7FL) << shift;
+            if ((b & 0x80) == 0) {
+                this.position = i;
+                return result;
+            }
+        }
+        throw new ArithmeticException("VarInt was too large");
+    }
+}
@@ -0,0 +1,61 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import org.cloudburstmc.nbt.NbtFormat;
+import org.cloudburstmc.nbt.util.VarInts;
+
+import java.io.IOException;
+
+public class NetworkByteArrayDataOutput extends LittleEndianByteArrayDataOutput {
+
+    public NetworkByteArrayDataOutput() {
+        super();
+    }
+
+    public NetworkByteArrayDataOutput(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public NbtFormat format() {
+        return NbtFormat.NETWORK;
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        this.writeVarInt(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        this.writeVarInt((v << 1) ^ (v >> 63));
+    }
+
+    @Override
+    public void writeInts(int[] array, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            int value = array[i];
+            this.writeVarInt(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+    }
+
+    @Override
+    public void writeLongs(long[] array, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            long value = array[i];
+            this.writeVarInt((value << 1) ^ (value >> 63));
+        }
+    }
+
+    @Override
+    protected void writeUTFLength(int length) throws IOException {
+        this.writeVarInt(length & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes an unsigned VarInt, reserving the maximum size up front and giving back what was not needed.
+     */
+    protected final void writeVarInt(long value) {
+        int i = this.reserve(10);
+        this.position = VarInts.writeUnsignedLong(this.array, i, value);
+    }
+}
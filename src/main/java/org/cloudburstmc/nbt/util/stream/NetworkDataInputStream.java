@@ -1,13 +1,11 @@
 package org.cloudburstmc.nbt.util.stream;
 
-import org.checkerframework.checker.nullness.qual.NonNull;
 import org.cloudburstmc.nbt.NbtUtils;
 import org.cloudburstmc.nbt.util.VarInts;
 
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 
 public class NetworkDataInputStream extends LittleEndianDataInputStream {
 
@@ -29,24 +27,49 @@ public class NetworkDataInputStream extends LittleEndianDataInputStream {
 
     @Override
     public int readInt() throws IOException {
-        this.tryRead(4); // assume that the int is 4 bytes
-        return VarInts.readInt(this.delegate());
+        return VarInts.readInt(this); // accounted byte by byte
     }
 
     @Override
     public long readLong() throws IOException {
-        this.tryRead(8); // assume that the long is 8 bytes
-        return VarInts.readLong(this.delegate());
+        return VarInts.readLong(this);
     }
 
     @Override
-    @NonNull
-    public String readUTF() throws IOException {
-        int length = VarInts.readUnsignedInt(this.delegate());
-        this.tryRead(length + 4);
+    public void readInts(int[] array, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            array[i] = this.readInt();
+        }
+    }
+
+    @Override
+    public void readLongs(long[] array, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            array[i] = this.readLong();
+        }
+    }
+
+    @Override
+    protected int readUTFLength() throws IOException {
+        return VarInts.readUnsignedInt(this);
+    }
 
-        byte[] bytes = new byte[length];
-        readFully(bytes);
-        return new String(bytes, StandardCharsets.UTF_8);
+    @Override
+    public void skipUTF() throws IOException {
+        this.skipFully(VarInts.readUnsignedInt(this) & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public void skipInts(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            VarInts.readUnsignedInt(this);
+        }
+    }
+
+    @Override
+    public void skipLongs(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            VarInts.readUnsignedLong(this);
+        }
     }
 }
@@ -9,6 +9,7 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 public class NetworkDataOutputStream extends LittleEndianDataOutputStream {
+    private final byte[] varInt = new byte[10];
 
     public NetworkDataOutputStream(OutputStream stream) {
         super(stream);
@@ -20,18 +21,46 @@ public class NetworkDataOutputStream extends LittleEndianDataOutputStream {
 
     @Override
     public void writeInt(int value) throws IOException {
-        VarInts.writeInt(stream, value);
+        this.stream.write(this.varInt, 0, VarInts.writeInt(this.varInt, 0, value));
     }
 
     @Override
     public void writeLong(long value) throws IOException {
-        VarInts.writeLong(stream, value);
+        this.stream.write(this.varInt, 0, VarInts.writeLong(this.varInt, 0, value));
     }
 
     @Override
     public void writeUTF(@NonNull String string) throws IOException {
         byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
-        VarInts.writeUnsignedInt(stream, bytes.length);
+        this.stream.write(this.varInt, 0, VarInts.writeUnsignedInt(this.varInt, 0, bytes.length));
         this.write(bytes);
     }
+
+    @Override
+    public void writeInts(int[] array, int offset, int length) throws IOException {
+        byte[] scratch = this.scratch();
+        int position = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (position > scratch.length - 5) {
+                this.stream.write(scratch, 0, position);
+                position = 0;
+            }
+            position = VarInts.writeInt(scratch, position, array[i]);
+        }
+        this.stream.write(scratch, 0, position);
+    }
+
+    @Override
+    public void writeLongs(long[] array, int offset, int length) throws IOException {
+        byte[] scratch = this.scratch();
+        int position = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (position > scratch.length - 10) {
+                this.stream.write(scratch, 0, position);
+                position = 0;
+            }
+            position = VarInts.writeLong(scratch, position, array[i]);
+        }
+        this.stream.write(scratch, 0, position);
+    }
 }
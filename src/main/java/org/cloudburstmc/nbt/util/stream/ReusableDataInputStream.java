@@ -0,0 +1,18 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+
+/**
+ * A {@link DataInputStream} which can be pointed at another stream, so that it can be reused for every message.
+ */
+public class ReusableDataInputStream extends DataInputStream {
+
+    public ReusableDataInputStream(InputStream stream) {
+        super(stream);
+    }
+
+    public void setStream(InputStream stream) {
+        this.in = stream;
+    }
+}
@@ -0,0 +1,22 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+
+/**
+ * A {@link DataOutputStream} which can be pointed at another stream, so that it can be reused for every message.
+ */
+public class ReusableDataOutputStream extends DataOutputStream {
+
+    public ReusableDataOutputStream(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Writes to the given stream from now on and resets the {@link #size()} to zero.
+     */
+    public void setStream(OutputStream stream) {
+        this.out = stream;
+        this.written = 0;
+    }
+}
@@ -0,0 +1,82 @@
+package org.cloudburstmc.nbt.util.stream;
+
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes strings from a byte array. Pure ASCII strings, which most NBT keys and values are, take a fast path that
+ * copies the bytes straight into the {@link String}.
+ */
+final class Utf8 {
+
+    private Utf8() {
+    }
+
+    static String decode(byte[] bytes, int offset, int length) {
+        if (isAscii(bytes, offset, length)) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the modified UTF-8 used by {@link java.io.DataInput#readUTF()}.
+     */
+    static String decodeModified(byte[] bytes, int offset, int length) throws UTFDataFormatException {
+        if (isAscii(bytes, offset, length)) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[length];
+        int count = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int c = bytes[i] & 0xFF;
+            switch (c >> 4) {
+                case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                    // 0xxxxxxx
+                    i++;
+                    chars[count++] = (char) c;
+                    break;
+                case 12: case 13:
+                    // 110x xxxx   10xx xxxx
+                    if (i + 2 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+                    int c2 = bytes[i + 1];
+                    if ((c2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 1 - offset));
+                    }
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    i += 2;
+                    break;
+                case 14:
+                    // 1110 xxxx  10xx xxxx  10xx xxxx
+                    if (i + 3 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+                    c2 = bytes[i + 1];
+                    int c3 = bytes[i + 2];
+                    if ((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 2 - offset));
+                    }
+                    chars[count++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    i += 3;
+                    break;
+                default:
+                    // 10xx xxxx, 1111 xxxx
+                    throw new UTFDataFormatException("malformed input around byte " + (i - offset));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static boolean isAscii(byte[] bytes, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
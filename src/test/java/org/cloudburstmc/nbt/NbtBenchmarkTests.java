@@ -49,6 +49,7 @@ public class NbtBenchmarkTests {
     @State(Scope.Thread)
     public static class BenchmarkState {
         byte[] nbtBytes;
+        Object tag;
 
         @Setup(Level.Trial)
         public void initialize() {
@@ -65,6 +66,7 @@ public class NbtBenchmarkTests {
                 }
 
                 nbtBytes = buffer.toByteArray();
+                tag = NbtUtils.createReader(nbtBytes).readTag();
             } catch (IOException e) {
                 throw new AssertionError("Unable to load benchmark NBT");
             }
@@ -76,4 +78,53 @@ public class NbtBenchmarkTests {
         NBTInputStream stream = NbtUtils.createReader(new ByteArrayInputStream(state.nbtBytes));
         stream.readTag();
     }
+
+    @Benchmark
+    public void byteArrayBenchmark(BenchmarkState state, Blackhole bh) throws IOException {
+        NBTInputStream stream = NbtUtils.createReader(state.nbtBytes);
+        stream.readTag();
+    }
+
+    @Benchmark
+    public void recursiveReadBenchmark(BenchmarkState state, Blackhole bh) throws IOException {
+        NBTInputStream stream = NbtUtils.createReader(state.nbtBytes);
+        bh.consume(stream.readTag(NbtUtils.MAX_DEPTH, false));
+    }
+
+    @Benchmark
+    public void iterativeReadBenchmark(BenchmarkState state, Blackhole bh) throws IOException {
+        NBTInputStream stream = NbtUtils.createReader(state.nbtBytes);
+        bh.consume(stream.readTag(NbtUtils.MAX_DEPTH, true));
+    }
+
+    @Benchmark
+    public void recursiveWriteBenchmark(BenchmarkState state, Blackhole bh) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(state.nbtBytes.length);
+        NbtUtils.createWriter(buffer).writeTag(state.tag, NbtUtils.MAX_DEPTH, false);
+        bh.consume(buffer);
+    }
+
+    @Benchmark
+    public void iterativeWriteBenchmark(BenchmarkState state, Blackhole bh) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(state.nbtBytes.length);
+        NbtUtils.createWriter(buffer).writeTag(state.tag, NbtUtils.MAX_DEPTH, true);
+        bh.consume(buffer);
+    }
+
+    @Benchmark
+    public void byteArrayWriteBenchmark(BenchmarkState state, Blackhole bh) throws IOException {
+        bh.consume(NbtUtils.encode(NbtFormat.BIG_ENDIAN, state.tag));
+    }
+
+    @Benchmark
+    public void skipBenchmark(BenchmarkState state) throws IOException {
+        NBTInputStream stream = NbtUtils.createReader(state.nbtBytes);
+        stream.skipTag();
+    }
+
+    @Benchmark
+    public void validateBenchmark(BenchmarkState state) throws IOException {
+        NBTInputStream stream = NbtUtils.createReader(state.nbtBytes);
+        stream.validate();
+    }
 }
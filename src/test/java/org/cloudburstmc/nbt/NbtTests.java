@@ -1,16 +1,38 @@
 package org.cloudburstmc.nbt;
 
 
+import org.cloudburstmc.nbt.util.VarInts;
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataInput;
+import org.cloudburstmc.nbt.util.stream.ByteArrayDataOutput;
+import org.cloudburstmc.nbt.util.stream.LittleEndianByteArrayDataOutput;
+import org.cloudburstmc.nbt.util.stream.NetworkByteArrayDataInput;
+import org.cloudburstmc.nbt.util.stream.NetworkByteArrayDataOutput;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 class NbtTests {
 
@@ -22,6 +44,9 @@ class NbtTests {
     private static final NbtMap[] TEST_LIST = new NbtMap[16];
 
     private static final NbtMap TEST_MAP;
+    private static final NbtFormat[] FORMATS = {NbtFormat.BIG_ENDIAN, NbtFormat.LITTLE_ENDIAN, NbtFormat.NETWORK};
+    // The stream writer of each of the FORMATS
+    private static final WriterFactory[] WRITERS = {NbtUtils::createWriter, NbtUtils::createWriterLE, NbtUtils::createNetworkWriter};
 
     static {
         TEST_BYTES = RANDOM.generateSeed(32);
@@ -88,4 +113,899 @@ class NbtTests {
             throw new AssertionError("Error whilst decoding tag", e);
         }
     }
+
+    @Test
+    @DisplayName("Byte Array Reader Test")
+    void byteArrayReaderTest() throws IOException {
+        byte[] bigEndian = encode(NbtUtils::createWriter, TEST_MAP);
+        byte[] littleEndian = encode(NbtUtils::createWriterLE, TEST_MAP);
+        byte[] network = encode(NbtUtils::createNetworkWriter, TEST_MAP);
+
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createReader(bigEndian).readTag());
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createReaderLE(littleEndian).readTag());
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createNetworkReader(network).readTag());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(network.length);
+        direct.put(network).flip();
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createNetworkReader(direct).readTag());
+        Assertions.assertEquals(0, direct.position());
+
+        byte[] truncated = Arrays.copyOf(bigEndian, bigEndian.length - 1);
+        Assertions.assertThrows(EOFException.class, () -> NbtUtils.createReader(truncated).readTag());
+    }
+
+    @Test
+    @DisplayName("UTF-8 Decoding Test")
+    void utf8DecodingTest() throws IOException {
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            longString.append(i % 2 == 0 ? '\u00e9' : 'a');
+        }
+        // A NUL and a supplementary character, which modified UTF-8 encodes differently, and a string of more than 8 KiB
+        NbtMap tag = NbtMap.builder()
+                .putString("Ascii", "plain")
+                .putString("Nul", "a\u0000b")
+                .putString("Supplementary", "\ud83d\ude00 \u4e16")
+                .putString("Long", longString.append(longString).toString())
+                .build();
+        ReaderFactory[] readers = {NbtUtils::createReader, NbtUtils::createReaderLE, NbtUtils::createNetworkReader};
+        for (int i = 0; i < FORMATS.length; i++) {
+            byte[] encoded = encode(WRITERS[i], tag);
+            Assertions.assertEquals(tag, readers[i].create(new ByteArrayInputStream(encoded)).readTag());
+            Assertions.assertEquals(tag, NbtUtils.threadLocalReader(FORMATS[i], encoded).readTag());
+        }
+
+        // Malformed modified UTF-8 is still rejected, with and without the ASCII fast path
+        byte[][] malformed = {{-1}, {'a', (byte) 0xC3, 'a'}, {'a', 'b', (byte) 0xE2, (byte) 0x82}};
+        for (byte[] bytes : malformed) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            out.writeByte(NbtType.STRING.getId());
+            out.writeUTF("");
+            out.writeShort(bytes.length);
+            out.write(bytes);
+            byte[] encoded = baos.toByteArray();
+            Assertions.assertThrows(UTFDataFormatException.class,
+                    () -> NbtUtils.createReader(new ByteArrayInputStream(encoded)).readTag());
+        }
+    }
+
+    @Test
+    @DisplayName("Stream Reader Test")
+    void streamReaderTest() throws IOException {
+        byte[] network = encode(NbtUtils::createNetworkWriter, TEST_MAP);
+        try (NbtStreamReader reader = new NbtStreamReader(new NetworkByteArrayDataInput(network))) {
+            Assertions.assertEquals(NbtToken.START_COMPOUND, reader.nextToken());
+            int entries = 0;
+            NbtToken token;
+            while ((token = reader.nextToken()) == NbtToken.NAME) {
+                entries++;
+                String name = reader.getName();
+                NbtToken valueToken = reader.nextToken();
+                switch (name) {
+                    case "IntTest":
+                        Assertions.assertEquals(TEST_MAP.getInt("IntTest"), reader.getInt());
+                        break;
+                    case "StringTest":
+                        Assertions.assertEquals(TEST_MAP.getString("StringTest"), reader.getString());
+                        break;
+                    case "LongArrayTest":
+                        Assertions.assertArrayEquals(TEST_LONGS, reader.getLongArray());
+                        break;
+                    case "ListTest":
+                        Assertions.assertEquals(NbtToken.START_LIST, valueToken);
+                        Assertions.assertEquals(NbtType.COMPOUND, reader.getListType());
+                        Assertions.assertEquals(TEST_LIST.length, reader.getSize());
+                        reader.skipChildren();
+                        Assertions.assertEquals(NbtToken.END_LIST, reader.getToken());
+                        break;
+                    case "CompoundTest":
+                        Assertions.assertEquals(NbtToken.NAME, reader.nextToken());
+                        Assertions.assertEquals(NbtToken.STRING, reader.nextToken());
+                        Assertions.assertEquals(NbtToken.END_COMPOUND, reader.nextToken());
+                        break;
+                }
+            }
+            Assertions.assertEquals(NbtToken.END_COMPOUND, token);
+            Assertions.assertEquals(TEST_MAP.size(), entries);
+            Assertions.assertNull(reader.nextToken());
+        }
+    }
+
+    @Test
+    @DisplayName("Stream Reader Limits Test")
+    void streamReaderLimitsTest() throws IOException {
+        // A long array which claims Integer.MAX_VALUE elements but has only three bytes of them
+        byte[] hostile = {12, 0, 0, 0x7F, -1, -1, -1, 0, 0, 0};
+        NbtStreamReader arrayReader = new NbtStreamReader(ByteArrayDataInput.create(NbtFormat.BIG_ENDIAN, hostile, 0, hostile.length));
+        Assertions.assertThrows(EOFException.class, arrayReader::nextToken);
+
+        NbtStreamReader streamReader = new NbtStreamReader(new DataInputStream(new ByteArrayInputStream(hostile)));
+        Assertions.assertEquals(NbtToken.LONG_ARRAY, streamReader.nextToken());
+        Assertions.assertThrows(EOFException.class, streamReader::getLongArray);
+
+        NbtStreamReader limitedReader = new NbtStreamReader(new DataInputStream(new ByteArrayInputStream(hostile)));
+        limitedReader.setReadLimits(new NbtReadLimits(16, 0, 0));
+        IOException e = Assertions.assertThrows(IOException.class, limitedReader::nextToken);
+        Assertions.assertTrue(e.getMessage().startsWith("Array elements exceeded limit"));
+
+        byte[] list = {9, 0, 0, 1, 0x7F, -1, -1, -1, 0};
+        NbtStreamReader listReader = new NbtStreamReader(new DataInputStream(new ByteArrayInputStream(list)));
+        listReader.setReadLimits(new NbtReadLimits(0, 1000, 0));
+        e = Assertions.assertThrows(IOException.class, listReader::nextToken);
+        Assertions.assertTrue(e.getMessage().startsWith("List entries exceeded limit"));
+    }
+
+    @Test
+    @DisplayName("Visitor Test")
+    void visitorTest() throws IOException {
+        byte[] bigEndian = encode(NbtUtils::createWriter, TEST_MAP);
+
+        NbtTreeBuilder builder = new NbtTreeBuilder();
+        NbtUtils.createReader(bigEndian).readTag(builder);
+        Assertions.assertEquals(TEST_MAP, builder.getResult());
+
+        NbtTreeBuilder filtered = new NbtTreeBuilder() {
+            @Override
+            public Result visitCompoundEntry(String name, NbtType<?> type) {
+                super.visitCompoundEntry(name, type);
+                return name.equals("StringTest") || name.equals("CompoundTest") || name.equals("CompoundStringTest") ? Result.CONTINUE : Result.SKIP;
+            }
+        };
+        NbtUtils.createReader(bigEndian).readTag(filtered);
+        NbtMap expected = NbtMap.builder()
+                .putString("StringTest", TEST_MAP.getString("StringTest"))
+                .putCompound("CompoundTest", TEST_MAP.getCompound("CompoundTest"))
+                .build();
+        Assertions.assertEquals(expected, filtered.getResult());
+    }
+
+    @Test
+    @DisplayName("Projection Test")
+    void projectionTest() throws IOException {
+        byte[] littleEndian = encode(NbtUtils::createWriterLE, TEST_MAP);
+        NbtProjection projection = NbtProjection.of("IntTest", "CompoundTest", "ListTest.ListInt", "Missing.Path");
+
+        NbtMap[] list = new NbtMap[TEST_LIST.length];
+        for (int i = 0; i < list.length; i++) {
+            list[i] = NbtMap.builder().putInt("ListInt", TEST_LIST[i].getInt("ListInt")).build();
+        }
+        NbtMap expected = NbtMap.builder()
+                .putInt("IntTest", TEST_MAP.getInt("IntTest"))
+                .putCompound("CompoundTest", TEST_MAP.getCompound("CompoundTest"))
+                .putList("ListTest", NbtType.COMPOUND, list)
+                .build();
+        Assertions.assertEquals(expected, NbtUtils.createReaderLE(littleEndian).readTag(projection));
+    }
+
+    @Test
+    @DisplayName("Lazy Read Test")
+    void lazyReadTest() throws IOException {
+        byte[] network = encode(NbtUtils::createNetworkWriter, TEST_MAP);
+        Object tag = NbtUtils.createNetworkReader(network).readLazyTag();
+        Assertions.assertInstanceOf(LazyNbtMap.class, tag);
+
+        // Writing in the same format copies the original bytes, even after the source array is reused
+        byte[] copy = network.clone();
+        Arrays.fill(network, (byte) 0);
+        Assertions.assertArrayEquals(copy, encode(NbtUtils::createNetworkWriter, tag));
+
+        Assertions.assertEquals(TEST_MAP.getInt("IntTest"), ((NbtMap) tag).getInt("IntTest"));
+        Assertions.assertEquals(TEST_MAP, tag);
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createReaderLE(encode(NbtUtils::createWriterLE, tag)).readTag());
+
+        // Strings and read limits are only checked once the compound is decoded
+        NBTInputStream limited = NbtUtils.createNetworkReader(copy);
+        limited.setReadLimits(new NbtReadLimits(0, 0, 1));
+        NbtMap lazy = (NbtMap) limited.readLazyTag();
+        UncheckedIOException e = Assertions.assertThrows(UncheckedIOException.class, lazy::size);
+        Assertions.assertTrue(e.getCause().getMessage().startsWith("Compound entries exceeded limit"));
+
+        // The nested compounds share the limits of the tag, so each entry is charged once for the whole tag
+        NbtMapBuilder nested = NbtMap.builder();
+        for (int i = 0; i < 10; i++) {
+            nested.putCompound("Child" + i, NbtMap.builder().putInt("A", i).putInt("B", i).putInt("C", i).build());
+        }
+        byte[] nestedBytes = encode(NbtUtils::createNetworkWriter, nested.build());
+        NBTInputStream exact = NbtUtils.createNetworkReader(nestedBytes);
+        exact.setReadLimits(new NbtReadLimits(0, 0, 40));
+        Assertions.assertEquals(nested.build(), exact.readLazyTag());
+        NBTInputStream tooSmall = NbtUtils.createNetworkReader(nestedBytes);
+        tooSmall.setReadLimits(new NbtReadLimits(0, 0, 39));
+        NbtMap children = (NbtMap) tooSmall.readLazyTag();
+        for (int i = 0; i < 9; i++) {
+            Assertions.assertEquals(i, children.getCompound("Child" + i).getInt("C"));
+        }
+        e = Assertions.assertThrows(UncheckedIOException.class, () -> children.getCompound("Child9").size());
+        Assertions.assertEquals("Compound entries exceeded limit: read=40, limit=39", e.getCause().getMessage());
+
+        byte[] malformedKey = {10, 0, 0, 1, 0, 1, -1, 5, 0};
+        NbtMap malformed = (NbtMap) NbtUtils.createReader(malformedKey).readLazyTag();
+        e = Assertions.assertThrows(UncheckedIOException.class, () -> malformed.get("x"));
+        Assertions.assertInstanceOf(UTFDataFormatException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("Bulk Array Test")
+    void bulkArrayTest() throws IOException {
+        // Larger than the scratch buffer, so the stream readers have to convert in several chunks
+        int[] ints = new int[5000];
+        long[] longs = new long[5000];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = RANDOM.nextInt();
+            longs[i] = RANDOM.nextLong();
+        }
+        NbtMap tag = NbtMap.builder()
+                .putIntArray("ints", ints)
+                .putLongArray("longs", longs)
+                .build();
+
+        byte[] bigEndian = encode(NbtUtils::createWriter, tag);
+        byte[] littleEndian = encode(NbtUtils::createWriterLE, tag);
+        byte[] network = encode(NbtUtils::createNetworkWriter, tag);
+        Assertions.assertEquals(tag, NbtUtils.createReader(new ByteArrayInputStream(bigEndian)).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createReaderLE(new ByteArrayInputStream(littleEndian)).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createNetworkReader(new ByteArrayInputStream(network)).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createReader(bigEndian).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createReaderLE(littleEndian).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createNetworkReader(network).readTag());
+    }
+
+    @Test
+    @DisplayName("Key Dictionary Test")
+    void keyDictionaryTest() throws IOException {
+        NbtKeyDictionary dictionary = new NbtKeyDictionary();
+        NbtMap tag = TEST_MAP.toBuilder()
+                .putString("\u043a\u043b\u044e\u0447\u0000\ud83d\ude00", "non-ASCII keys are decoded normally")
+                .build();
+
+        byte[] bigEndian = encode(NbtUtils::createWriter, tag);
+        byte[] littleEndian = encode(NbtUtils::createWriterLE, tag);
+        byte[] network = encode(NbtUtils::createNetworkWriter, tag);
+        NbtMap first = (NbtMap) NbtUtils.createReader(new ByteArrayInputStream(bigEndian), dictionary, false).readTag();
+        Assertions.assertEquals(tag, first);
+        Assertions.assertEquals(tag, NbtUtils.createReaderLE(new ByteArrayInputStream(littleEndian), dictionary, false).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createNetworkReader(new ByteArrayInputStream(network), dictionary, false).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createReader(bigEndian, dictionary, false).readTag());
+        Assertions.assertEquals(tag, NbtUtils.createReaderLE(littleEndian, dictionary, false).readTag());
+        NbtMap last = (NbtMap) NbtUtils.createNetworkReader(network, dictionary, false).readTag();
+        Assertions.assertEquals(tag, last);
+
+        // Keys are shared between readers and formats
+        Assertions.assertSame(first.keySet().iterator().next(), last.keySet().iterator().next());
+    }
+
+    @Test
+    @DisplayName("Iterative Codec Test")
+    void iterativeCodecTest() throws IOException {
+        ByteArrayOutputStream recursive = new ByteArrayOutputStream();
+        ByteArrayOutputStream iterative = new ByteArrayOutputStream();
+        NbtUtils.createWriterLE(recursive).writeTag(TEST_MAP, NbtUtils.MAX_DEPTH, false);
+        NbtUtils.createWriterLE(iterative).writeTag(TEST_MAP, NbtUtils.MAX_DEPTH, true);
+        Assertions.assertArrayEquals(recursive.toByteArray(), iterative.toByteArray());
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createReaderLE(iterative.toByteArray()).readTag(NbtUtils.MAX_DEPTH, true));
+
+        // Far deeper than the thread's stack would allow when recursing
+        int depth = 0;
+        NbtMap tag = NbtMap.builder().putString("leaf", "value").build();
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 2 == 0) {
+                tag = NbtMap.builder().putCompound("child", tag).build();
+                depth += 1;
+            } else {
+                tag = NbtMap.builder().putList("children", NbtType.COMPOUND, tag).build();
+                depth += 2;
+            }
+        }
+        int maxDepth = depth + 1; // The leaf string is nested one level below the innermost compound
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        NbtUtils.createNetworkWriter(written).writeTag(tag, maxDepth);
+        byte[] network = written.toByteArray();
+        Object read = NbtUtils.createNetworkReader(network).readTag(maxDepth);
+
+        ByteArrayOutputStream rewritten = new ByteArrayOutputStream();
+        NbtUtils.createNetworkWriter(rewritten).writeTag(read, maxDepth);
+        Assertions.assertArrayEquals(network, rewritten.toByteArray());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NbtUtils.createNetworkReader(network).readTag(maxDepth - 1));
+    }
+
+    @Test
+    @DisplayName("List Decoding Test")
+    void listDecodingTest() throws IOException {
+        byte[] bigEndian = encode(NbtUtils::createWriter, TEST_MAP);
+        NbtMap tag = (NbtMap) NbtUtils.createReader(new ByteArrayInputStream(bigEndian)).readTag();
+        Assertions.assertEquals(TEST_MAP.getList("ListTest", NbtType.COMPOUND), tag.getList("ListTest", NbtType.COMPOUND));
+
+        // A list which claims far more elements than there are bytes must not be allocated up front
+        byte[] oversized = {9, 0, 0, 1, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 2, 3};
+        Assertions.assertThrows(EOFException.class, () -> NbtUtils.createReader(oversized).readTag());
+        Assertions.assertThrows(EOFException.class, () -> NbtUtils.createReader(new ByteArrayInputStream(oversized)).readTag());
+    }
+
+    @Test
+    @DisplayName("Skip And Validate Test")
+    void skipAndValidateTest() throws IOException {
+        byte[] network = encode(NbtUtils::createNetworkWriter, TEST_MAP);
+        byte[] twice = Arrays.copyOf(network, network.length * 2);
+        System.arraycopy(network, 0, twice, network.length, network.length);
+
+        NBTInputStream reader = NbtUtils.createNetworkReader(new ByteArrayInputStream(twice));
+        reader.skipTag();
+        Assertions.assertEquals(TEST_MAP, reader.readTag());
+
+        NetworkByteArrayDataInput input = new NetworkByteArrayDataInput(twice);
+        reader = new NBTInputStream(input);
+        reader.validate();
+        Assertions.assertEquals(network.length, input.position());
+        reader.validate();
+        Assertions.assertEquals(0, input.remaining());
+
+        // A compound holding an int array with a negative length, which the lenient walk tolerates
+        byte[] negativeLength = {10, 0, 0, 11, 0, 1, 'a', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0};
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NbtUtils.createReader(negativeLength).validate());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NbtUtils.createReader(new byte[]{10, 0, 0, 13, 0, 0, 0}).validate());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NbtUtils.createReader(new byte[]{9, 0, 0, 0, 0, 0, 0, 1}).validate());
+        Assertions.assertDoesNotThrow(() -> NbtUtils.createReader(new byte[]{9, 0, 0, 0, 0, 0, 0, 1}).skipTag());
+    }
+
+    @Test
+    @DisplayName("Read Limits Test")
+    void readLimitsTest() throws IOException {
+        byte[] bigEndian = encode(NbtUtils::createWriter, TEST_MAP);
+        byte[] littleEndian = encode(NbtUtils::createWriterLE, TEST_MAP);
+        byte[] network = encode(NbtUtils::createNetworkWriter, TEST_MAP);
+
+        // Every format accounts for exactly the bytes it reads
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createReader(new ByteArrayInputStream(bigEndian), bigEndian.length).readTag());
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createReaderLE(new ByteArrayInputStream(littleEndian), littleEndian.length).readTag());
+        Assertions.assertEquals(TEST_MAP, NbtUtils.createNetworkReader(new ByteArrayInputStream(network), network.length).readTag());
+        Assertions.assertThrows(IOException.class, () -> NbtUtils.createReader(new ByteArrayInputStream(bigEndian), bigEndian.length - 1).readTag());
+        Assertions.assertThrows(IOException.class, () -> NbtUtils.createReaderLE(new ByteArrayInputStream(littleEndian), littleEndian.length - 1).readTag());
+        Assertions.assertThrows(IOException.class, () -> NbtUtils.createNetworkReader(new ByteArrayInputStream(network), network.length - 1).readTag());
+
+        NBTInputStream reader = NbtUtils.createReader(bigEndian);
+        reader.setReadLimits(new NbtReadLimits(0, TEST_LIST.length, 0));
+        Assertions.assertEquals(TEST_MAP, reader.readTag());
+
+        NBTInputStream limited = NbtUtils.createReader(bigEndian);
+        limited.setReadLimits(new NbtReadLimits(0, TEST_LIST.length - 1, 0));
+        Assertions.assertThrows(IOException.class, limited::readTag);
+        NBTInputStream fewEntries = NbtUtils.createReader(bigEndian);
+        fewEntries.setReadLimits(new NbtReadLimits(0, 0, TEST_MAP.size()));
+        Assertions.assertThrows(IOException.class, fewEntries::readTag);
+
+        // A hostile array length is rejected before anything is allocated for it
+        byte[] hostile = {7, 0, 0, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 2, 3};
+        NBTInputStream budget = NbtUtils.createReader(new ByteArrayInputStream(hostile));
+        budget.setReadLimits(new NbtReadLimits(1024, 0, 0));
+        Assertions.assertThrows(IOException.class, budget::readTag);
+        Assertions.assertThrows(EOFException.class, () -> NbtUtils.createReader(new ByteArrayInputStream(hostile)).readTag());
+    }
+
+    @Test
+    @DisplayName("Incremental Reader Test")
+    void incrementalReaderTest() throws IOException {
+        byte[][] encoded = {
+                encode(NbtUtils::createWriter, TEST_MAP),
+                encode(NbtUtils::createWriterLE, TEST_MAP),
+                encode(NbtUtils::createNetworkWriter, TEST_MAP)
+        };
+        for (int i = 0; i < FORMATS.length; i++) {
+            byte[] bytes = encoded[i];
+            for (int chunkSize : new int[]{1, 7, 64, bytes.length}) {
+                NbtIncrementalReader reader = new NbtIncrementalReader(FORMATS[i]);
+                NbtIncrementalReader.Status status = NbtIncrementalReader.Status.NEED_MORE_INPUT;
+                for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                    Assertions.assertEquals(NbtIncrementalReader.Status.NEED_MORE_INPUT, status);
+                    status = reader.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+                }
+                Assertions.assertEquals(NbtIncrementalReader.Status.COMPLETE, status);
+                Assertions.assertEquals(TEST_MAP, reader.getTag());
+            }
+        }
+
+        // VarInt arrays which arrive in small chunks are decoded from where the last chunk ended
+        NbtMap arrays = NbtMap.builder()
+                .putIntArray("Ints", RANDOM.ints(10_000).toArray())
+                .putLongArray("Longs", RANDOM.longs(10_000).toArray())
+                .build();
+        byte[] varInts = encode(NbtUtils::createNetworkWriter, arrays);
+        NbtIncrementalReader arrayReader = new NbtIncrementalReader(NbtFormat.NETWORK);
+        for (int offset = 0; offset < varInts.length; offset += 3) {
+            arrayReader.feed(ByteBuffer.wrap(varInts, offset, Math.min(3, varInts.length - offset)));
+        }
+        Assertions.assertEquals(arrays, arrayReader.getTag());
+
+        // Bytes after the root tag are left for the next one
+        byte[] network = encoded[2];
+        ByteBuffer twice = ByteBuffer.allocate(network.length * 2).put(network).put(network);
+        twice.flip();
+        NbtIncrementalReader reader = new NbtIncrementalReader(NbtFormat.NETWORK);
+        Assertions.assertEquals(NbtIncrementalReader.Status.COMPLETE, reader.feed(twice));
+        Assertions.assertEquals(network.length, twice.remaining());
+        Assertions.assertThrows(IllegalStateException.class, () -> reader.feed(twice));
+        reader.reset();
+        Assertions.assertEquals(NbtIncrementalReader.Status.COMPLETE, reader.feed(twice));
+        Assertions.assertEquals(TEST_MAP, reader.getTag());
+        Assertions.assertFalse(twice.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("Reset Test")
+    void resetTest() throws IOException {
+        for (NbtFormat format : FORMATS) {
+            NBTOutputStream writer = null;
+            byte[] encoded = null;
+            for (int i = 0; i < 3; i++) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                NBTOutputStream reused = NbtUtils.threadLocalWriter(format, baos);
+                Assertions.assertTrue(writer == null || writer == reused);
+                writer = reused;
+                writer.writeTag(TEST_MAP);
+                writer.close();
+                Assertions.assertTrue(encoded == null || Arrays.equals(encoded, baos.toByteArray()));
+                encoded = baos.toByteArray();
+            }
+
+            writer.setCanonical(true);
+            Assertions.assertFalse(NbtUtils.threadLocalWriter(format, new ByteArrayOutputStream()).isCanonical());
+
+            NBTInputStream reader = NbtUtils.threadLocalReader(format, encoded);
+            reader.setReadLimits(new NbtReadLimits(0, TEST_LIST.length, 0));
+            Assertions.assertEquals(TEST_MAP, reader.readTag());
+            // Settings of the previous caller are reset
+            reader.setDecodePool(ForkJoinPool.commonPool());
+            Assertions.assertSame(reader, NbtUtils.threadLocalReader(format, new ByteArrayInputStream(encoded)));
+            Assertions.assertSame(NbtReadLimits.UNLIMITED, reader.getReadLimits());
+            Assertions.assertNull(reader.getDecodePool());
+            Assertions.assertEquals(TEST_MAP, reader.readTag());
+            reader.close();
+            Assertions.assertSame(reader, NbtUtils.threadLocalReader(format, ByteBuffer.wrap(encoded)));
+            Assertions.assertEquals(TEST_MAP, reader.readTag());
+        }
+
+        byte[] bigEndian = encode(NbtUtils::createWriter, TEST_MAP);
+        ByteArrayInputStream first = new ByteArrayInputStream(bigEndian);
+        NBTInputStream reader = new NBTInputStream(new DataInputStream(first), bigEndian.length);
+        Assertions.assertEquals(TEST_MAP, reader.readTag());
+        reader.reset(new DataInputStream(new ByteArrayInputStream(bigEndian)));
+        Assertions.assertEquals(TEST_MAP, reader.readTag());
+    }
+
+    @Test
+    @DisplayName("Tag Iterator Test")
+    void tagIteratorTest() throws IOException {
+        List<Object> tags = new ArrayList<>();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (NBTOutputStream writer = NbtUtils.createNetworkWriter(baos)) {
+            for (int i = 0; i < 100; i++) {
+                NbtMap tag = i % 10 == 0 ? TEST_MAP : NbtMap.builder().putInt("Index", i).build();
+                tags.add(tag);
+                writer.writeTag(tag);
+            }
+        }
+        byte[] network = baos.toByteArray();
+
+        List<Object> iterated = new ArrayList<>();
+        NbtUtils.createNetworkReader(new ByteArrayInputStream(network)).tagIterator().forEachRemaining(iterated::add);
+        Assertions.assertEquals(tags, iterated);
+
+        NBTInputStream reader = NbtUtils.createNetworkReader(network);
+        reader.setReadLimits(new NbtReadLimits(0, TEST_LIST.length, 0));
+        Assertions.assertEquals(tags, StreamSupport.stream(reader.tagSpliterator(), true).collect(Collectors.toList()));
+        Assertions.assertFalse(NbtUtils.createNetworkReader(new byte[0]).tagIterator().hasNext());
+
+        // The maximum read size applies to each tag, not to the whole stream
+        int largest = encode(NbtUtils::createNetworkWriter, TEST_MAP).length;
+        iterated.clear();
+        NbtUtils.createNetworkReader(new ByteArrayInputStream(network), largest).tagIterator().forEachRemaining(iterated::add);
+        Assertions.assertEquals(tags, iterated);
+
+        // A tag which is cut off is an error rather than the end of the input
+        byte[] truncated = Arrays.copyOf(network, network.length - 1);
+        Iterator<Object> iterator = NbtUtils.createNetworkReader(new ByteArrayInputStream(truncated)).tagIterator();
+        Assertions.assertThrows(UncheckedIOException.class, () -> iterator.forEachRemaining(tag -> {
+        }));
+    }
+
+    @Test
+    @DisplayName("Parallel Decode Test")
+    void parallelDecodeTest() throws IOException {
+        List<NbtMap> entities = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            entities.add(i % 100 == 0 ? TEST_MAP : NbtMap.builder()
+                    .putInt("Index", i)
+                    .putString("Name", "entity" + i)
+                    .putList("Pos", NbtType.DOUBLE, (double) i, 64.0, (double) -i)
+                    .build());
+        }
+        NbtMap structure = NbtMap.builder().putList("Entities", NbtType.COMPOUND, entities).build();
+        byte[] littleEndian = encode(NbtUtils::createWriterLE, structure);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int maxDepth : new int[]{NbtUtils.MAX_DEPTH, 100}) {
+                NBTInputStream reader = NbtUtils.createReaderLE(littleEndian);
+                reader.setDecodePool(pool);
+                Assertions.assertEquals(structure, reader.readTag(maxDepth));
+            }
+
+            // The entries decoded by every range count towards the limits of the reader
+            NBTInputStream limited = NbtUtils.createReaderLE(littleEndian);
+            limited.setDecodePool(pool);
+            limited.setReadLimits(new NbtReadLimits(0, 0, 2 * entities.size()));
+            Assertions.assertThrows(IOException.class, limited::readTag);
+
+            // Ranges charge the same counters while decoding, so the list fails as soon as it exceeds the limit
+            List<NbtMap> arrays = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                arrays.add(NbtMap.builder().putByteArray("Data", new byte[100]).build());
+            }
+            byte[] hostile = encode(NbtUtils::createWriterLE, NbtMap.builder().putList("Arrays", NbtType.COMPOUND, arrays).build());
+            NBTInputStream budgeted = NbtUtils.createReaderLE(hostile);
+            budgeted.setDecodePool(pool);
+            budgeted.setReadLimits(new NbtReadLimits(50_000, 0, 0));
+            IOException e = Assertions.assertThrows(IOException.class, budgeted::readTag);
+            long read = Long.parseLong(e.getMessage().replaceAll(".*read=(\\d+),.*", "$1"));
+            // Ranges which are already running may each charge one more compound, but not the 200,000 of the whole list
+            Assertions.assertTrue(read < 2 * 50_000, e.getMessage());
+
+            byte[] truncated = Arrays.copyOf(littleEndian, littleEndian.length - 10);
+            NBTInputStream reader = NbtUtils.createReaderLE(truncated);
+            reader.setDecodePool(pool);
+            Assertions.assertThrows(EOFException.class, reader::readTag);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Byte Array Writer Test")
+    void byteArrayWriterTest() throws IOException {
+        NbtMap strings = NbtMap.builder()
+                .putString("Ascii", "plain")
+                .putString("Nul", "a\u0000b")
+                .putString("Unicode", "\u00e9\u4e2d\ud83d\ude00")
+                .putInt("Negative", -123456)
+                .putLong("Big", Long.MIN_VALUE)
+                .build();
+        for (int i = 0; i < FORMATS.length; i++) {
+            NbtFormat format = FORMATS[i];
+            for (NbtMap tag : new NbtMap[]{TEST_MAP, strings}) {
+                byte[] expected = encode(WRITERS[i], tag);
+
+                ByteArrayDataOutput output = ByteArrayDataOutput.create(format, 1);
+                new NBTOutputStream(output).writeTag(tag);
+                Assertions.assertArrayEquals(expected, output.toByteArray());
+                Assertions.assertArrayEquals(expected, NbtUtils.encode(format, tag));
+
+                ByteBuffer buffer = ByteBuffer.allocate(expected.length + 1);
+                NbtUtils.encode(format, tag, buffer);
+                Assertions.assertEquals(expected.length, buffer.position());
+                Assertions.assertThrows(BufferOverflowException.class, () -> NbtUtils.encode(format, tag, buffer));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Serialized Size Test")
+    void serializedSizeTest() throws IOException {
+        NbtMap strings = NbtMap.builder()
+                .putString("Nul", "a\u0000b")
+                .putString("Unicode", "\u00e9\u4e2d\ud83d\ude00")
+                .putString("Unpaired", "\ud83d!")
+                .putIntArray("Ints", new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE})
+                .putLongArray("Longs", new long[]{0, 64, Long.MAX_VALUE, Long.MIN_VALUE})
+                .build();
+        for (NbtFormat format : FORMATS) {
+            for (NbtMap tag : new NbtMap[]{TEST_MAP, strings}) {
+                byte[] encoded = NbtUtils.encode(format, tag);
+                Assertions.assertEquals(encoded.length, NbtUtils.serializedSize(tag, format));
+                // Cached the second time
+                Assertions.assertEquals(encoded.length, NbtUtils.serializedSize(tag, format));
+                int header = format == NbtFormat.NETWORK ? 2 : 3; // Type id and empty name
+                Assertions.assertEquals(encoded.length - header, NbtUtils.serializedValueSize(tag, format));
+
+                Object lazy = NbtUtils.threadLocalReader(format, encoded).readLazyTag();
+                Assertions.assertEquals(encoded.length, NbtUtils.serializedSize(lazy, format));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Memoized Encoding Test")
+    void memoizedEncodingTest() throws IOException {
+        NbtList<NbtMap> palette = new NbtList<>(NbtType.COMPOUND, TEST_LIST).memoizeEncoded();
+        NbtMap definitions = NbtMap.builder()
+                .putCompound("Test", TEST_MAP.toBuilder().build().memoizeEncoded())
+                .putList("Palette", NbtType.COMPOUND, palette)
+                .build();
+        NbtMap plain = NbtMap.builder()
+                .putCompound("Test", TEST_MAP)
+                .putList("Palette", NbtType.COMPOUND, TEST_LIST)
+                .build();
+
+        for (int i = 0; i < FORMATS.length; i++) {
+            byte[] expected = encode(WRITERS[i], plain);
+            Assertions.assertNull(palette.encodedForms().get(FORMATS[i]));
+            Assertions.assertArrayEquals(expected, encode(WRITERS[i], definitions));
+            Assertions.assertNotNull(palette.encodedForms().get(FORMATS[i]));
+            Assertions.assertArrayEquals(expected, encode(WRITERS[i], definitions));
+            Assertions.assertArrayEquals(expected, NbtUtils.encode(FORMATS[i], definitions));
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            WRITERS[i].create(baos).writeTag(definitions, 100);
+            Assertions.assertArrayEquals(expected, baos.toByteArray());
+            Assertions.assertEquals(expected.length, NbtUtils.serializedSize(definitions, FORMATS[i]));
+        }
+
+        // A filled cache does not let a payload through which is nested deeper than the writer allows
+        NbtMap deep = NbtMap.builder()
+                .putCompound("A", NbtMap.builder().putCompound("B", NbtMap.builder().putInt("C", 1).build()).build())
+                .build().memoizeEncoded();
+        NbtMap wrapper = NbtMap.builder().putCompound("Deep", deep).build().memoizeEncoded();
+        for (int i = 0; i < FORMATS.length; i++) {
+            NBTOutputStream writer = WRITERS[i].create(new ByteArrayOutputStream());
+            writer.writeTag(deep, 100);
+            writer.writeTag(wrapper, 100);
+            Assertions.assertNotNull(wrapper.encodedForms().get(FORMATS[i]));
+            for (boolean iterative : new boolean[]{false, true}) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> writer.writeTag(deep, 2, iterative));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> writer.writeTag(wrapper, 3, iterative));
+                writer.writeTag(deep, 3, iterative);
+                writer.writeTag(wrapper, 4, iterative);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Stream Writer Test")
+    void streamWriterTest() throws IOException {
+        NbtMap expected = NbtMap.builder()
+                .putInt("Int", -5)
+                .putString("String", "\u00e9t\u00e9")
+                .putList("Positions", NbtType.DOUBLE, 1.0, 2.0, 3.0)
+                .putList("Empty", NbtType.END, new ArrayList<>())
+                .putCompound("Nested", NbtMap.builder().putLongArray("Longs", TEST_LONGS).putBoolean("Flag", true).build())
+                .putCompound("Test", TEST_MAP)
+                .build();
+        for (NbtFormat format : FORMATS) {
+            ByteArrayDataOutput output = ByteArrayDataOutput.create(format);
+            NbtStreamWriter writer = new NbtStreamWriter(output);
+            writer.beginCompound()
+                    .name("Int").writeInt(-5)
+                    .name("String").writeString("\u00e9t\u00e9")
+                    .name("Positions").beginList(NbtType.DOUBLE, 3).writeDouble(1).writeDouble(2).writeDouble(3).end()
+                    .name("Empty").beginList(NbtType.END, 0).end()
+                    .name("Nested").beginCompound()
+                    .name("Longs").writeLongArray(TEST_LONGS)
+                    .name("Flag").writeBoolean(true)
+                    .end()
+                    .name("Test").writeValue(TEST_MAP)
+                    .end();
+            Assertions.assertTrue(writer.isComplete());
+            Assertions.assertArrayEquals(NbtUtils.encode(format, expected), output.toByteArray());
+        }
+
+        NbtStreamWriter writer = new NbtStreamWriter(ByteArrayDataOutput.create(NbtFormat.NETWORK), 1);
+        writer.beginCompound();
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.writeInt(1));
+        writer.name("List").beginList(NbtType.INT, 1);
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.name("Element"));
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.writeLong(1));
+        Assertions.assertThrows(IllegalStateException.class, writer::end);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> writer.writeInt(1));
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.beginList(NbtType.INT, 0));
+    }
+
+    @Test
+    @DisplayName("Bulk Array Writing Test")
+    void bulkArrayWritingTest() throws IOException {
+        int[] ints = RANDOM.ints(5000).toArray();
+        long[] longs = RANDOM.longs(3000).toArray();
+        ints[0] = Integer.MIN_VALUE;
+        longs[0] = Long.MIN_VALUE;
+        NbtMap tag = NbtMap.builder().putIntArray("Ints", ints).putLongArray("Longs", longs).build();
+
+        for (int i = 0; i < FORMATS.length; i++) {
+            byte[] encoded = encode(WRITERS[i], tag);
+            Assertions.assertArrayEquals(encoded, NbtUtils.encode(FORMATS[i], tag));
+            Assertions.assertEquals(encoded.length, NbtUtils.serializedSize(tag, FORMATS[i]));
+            Assertions.assertEquals(tag, NbtUtils.threadLocalReader(FORMATS[i], encoded).readTag());
+        }
+    }
+
+    @Test
+    @DisplayName("VarInt Codec Test")
+    void varIntCodecTest() throws IOException {
+        long[] longs = {0, 1, -1, 63, -64, 64, 8191, -8192, 8192, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE};
+        int[] ints = new int[longs.length];
+        for (int i = 0; i < longs.length; i++) {
+            ints[i] = (int) longs[i];
+        }
+
+        // The buffer codec must produce the same bytes as the DataOutput one
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        for (long value : longs) {
+            VarInts.writeLong(out, value);
+            VarInts.writeUnsignedLong(out, value);
+        }
+        for (int value : ints) {
+            VarInts.writeInt(out, value);
+        }
+        byte[] buffer = new byte[longs.length * 20 + ints.length * 5];
+        int index = 0;
+        for (long value : longs) {
+            index = VarInts.writeLong(buffer, index, value);
+            index = VarInts.writeUnsignedLong(buffer, index, value);
+        }
+        index = VarInts.writeInts(buffer, index, ints, 0, ints.length);
+        Assertions.assertArrayEquals(baos.toByteArray(), Arrays.copyOf(buffer, index));
+
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, index);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer, 0, index));
+        for (long value : longs) {
+            Assertions.assertEquals(value, VarInts.readLong(bytes));
+            Assertions.assertEquals(value, VarInts.readUnsignedLong(bytes));
+            Assertions.assertEquals(value, VarInts.readLong(in));
+            Assertions.assertEquals(value, VarInts.readUnsignedLong(in));
+        }
+        int[] decoded = new int[ints.length];
+        VarInts.readInts(bytes, decoded, 0, decoded.length);
+        Assertions.assertArrayEquals(ints, decoded);
+        Assertions.assertFalse(bytes.hasRemaining());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(longs.length * 10);
+        VarInts.writeLongs(direct, longs, 0, longs.length);
+        Assertions.assertThrows(BufferOverflowException.class, () -> VarInts.writeLong(ByteBuffer.allocateDirect(9), Long.MIN_VALUE));
+        direct.flip();
+        long[] decodedLongs = new long[longs.length];
+        VarInts.readLongs(direct, decodedLongs, 0, decodedLongs.length);
+        Assertions.assertArrayEquals(longs, decodedLongs);
+        Assertions.assertEquals(10, VarInts.unsignedSize(-1));
+        Assertions.assertEquals(1, VarInts.unsignedSize(0));
+
+        ByteBuffer tooLarge = ByteBuffer.wrap(new byte[]{-1, -1, -1, -1, -1, 1});
+        Assertions.assertThrows(ArithmeticException.class, () -> VarInts.readUnsignedInt(tooLarge));
+    }
+
+    @Test
+    @DisplayName("Key Encoding Cache Test")
+    void keyEncodingCacheTest() throws IOException {
+        NbtMap tag = NbtMap.builder()
+                .putString("ascii", "a")
+                .putCompound("nested", NbtMap.builder().putInt("\u00e9t\u00e9\u0000", 1).putInt("ascii", 2).build())
+                .putList("list", NbtType.COMPOUND, NbtMap.builder().putByte("ascii", (byte) 3).build())
+                .build();
+        NbtKeyEncodingCache cache = new NbtKeyEncodingCache(4);
+        WriterFactory[] cached = {
+                stream -> NbtUtils.createWriter(stream, cache),
+                stream -> NbtUtils.createWriterLE(stream, cache),
+                stream -> NbtUtils.createNetworkWriter(stream, cache)
+        };
+        for (int i = 0; i < FORMATS.length; i++) {
+            byte[] expected = encode(WRITERS[i], tag);
+            // Write twice, the second time from the cache, which is shared between the formats
+            Assertions.assertArrayEquals(expected, encode(cached[i], tag));
+            Assertions.assertArrayEquals(expected, encode(cached[i], tag));
+            Assertions.assertArrayEquals(expected, NbtUtils.encode(FORMATS[i], tag));
+        }
+
+        byte[] key = cache.encode("ascii", NbtFormat.NETWORK);
+        Assertions.assertArrayEquals(new byte[]{5, 'a', 's', 'c', 'i', 'i'}, key);
+        Assertions.assertSame(key, cache.encode("ascii", NbtFormat.NETWORK));
+        Assertions.assertArrayEquals(new byte[]{0, 5, 'a', 's', 'c', 'i', 'i'}, cache.encode("ascii", NbtFormat.BIG_ENDIAN));
+        Assertions.assertNull(cache.encode(String.join("", Collections.nCopies(65, "k")), NbtFormat.NETWORK));
+    }
+
+    @Test
+    @DisplayName("Canonical Writing Test")
+    void canonicalWritingTest() throws IOException {
+        int[] ints = RANDOM.ints(1000).toArray();
+        NbtMap first = NbtMap.builder()
+                .putInt("b", 1)
+                .putString("a", "text")
+                .putIntArray("c", ints)
+                .putList("d", NbtType.COMPOUND, NbtMap.builder().putByte("y", (byte) 1).putByte("x", (byte) 2).build())
+                .build();
+        NbtMap second = NbtMap.builder()
+                .putList("d", NbtType.COMPOUND, NbtMap.builder().putByte("x", (byte) 2).putByte("y", (byte) 1).build())
+                .putIntArray("c", ints)
+                .putString("a", "text")
+                .putInt("b", 1)
+                .build();
+        Assertions.assertEquals(first, second);
+        Assertions.assertFalse(Arrays.equals(encode(NbtUtils::createWriter, first), encode(NbtUtils::createWriter, second)));
+
+        WriterFactory canonical = stream -> {
+            NBTOutputStream writer = NbtUtils.createWriter(stream);
+            writer.setCanonical(true);
+            return writer;
+        };
+        byte[] encoded = encode(canonical, first.memoizeEncoded());
+        Assertions.assertArrayEquals(encoded, encode(canonical, second));
+        Assertions.assertEquals(first, NbtUtils.threadLocalReader(NbtFormat.BIG_ENDIAN, encoded).readTag());
+        // Memoized payloads keep insertion order, so they are not spliced into canonical output
+        encode(NbtUtils::createWriter, second.memoizeEncoded());
+        Assertions.assertArrayEquals(encoded, encode(canonical, second));
+
+        Assertions.assertEquals(NbtUtils.contentHash(first), NbtUtils.contentHash(second));
+        Assertions.assertNotEquals(NbtUtils.contentHash(first), NbtUtils.contentHash(first.toBuilder().putInt("b", 2).build()));
+        Assertions.assertNotEquals(NbtUtils.contentHash(1), NbtUtils.contentHash((byte) 1));
+        Assertions.assertNotEquals(NbtUtils.contentHash(NbtMap.EMPTY), NbtUtils.contentHash(NbtList.EMPTY));
+
+        // Large arrays are hashed in chunks instead of being buffered as a whole
+        long[] longs = RANDOM.longs(100_000).toArray();
+        ContentHasher bulk = new ContentHasher();
+        bulk.writeLongs(longs);
+        ContentHasher single = new ContentHasher();
+        for (long value : longs) {
+            single.writeLong(value);
+        }
+        Assertions.assertTrue(bulk.array().length <= 512);
+        Assertions.assertEquals(single.finish(), bulk.finish());
+    }
+
+    @Test
+    @DisplayName("Raw NBT Splicing Test")
+    void rawNbtSplicingTest() throws IOException {
+        NbtMap inventory = NbtMap.builder()
+                .putList("Items", NbtType.COMPOUND, NbtMap.builder().putString("id", "stone").putByte("Count", (byte) 64).build())
+                .putLongArray("Seeds", RANDOM.longs(100).toArray())
+                .build();
+        NbtMap expected = NbtMap.builder().putInt("Health", 20).putCompound("Inventory", inventory).build();
+
+        for (int i = 0; i < FORMATS.length; i++) {
+            RawNbt raw = RawNbt.encode(FORMATS[i], inventory);
+            Assertions.assertEquals(NbtType.COMPOUND, raw.getType());
+            Assertions.assertEquals(inventory, raw.decode());
+            Assertions.assertEquals(raw, RawNbt.wrap(FORMATS[i], NbtType.COMPOUND, raw.toByteArray()));
+            NbtMapBuilder builder = NbtMap.builder().putInt("Health", 20);
+            builder.put("Inventory", raw);
+            NbtMap tag = builder.build();
+
+            byte[] encoded = encode(WRITERS[i], expected);
+            Assertions.assertArrayEquals(encoded, encode(WRITERS[i], tag));
+            Assertions.assertEquals(encoded.length, NbtUtils.serializedSize(tag, FORMATS[i]));
+            // Writers of the other formats and the iterative writer decode the value again
+            for (int j = 0; j < FORMATS.length; j++) {
+                Assertions.assertArrayEquals(NbtUtils.encode(FORMATS[j], expected), NbtUtils.encode(FORMATS[j], tag));
+                Assertions.assertEquals(NbtUtils.serializedSize(expected, FORMATS[j]), NbtUtils.serializedSize(tag, FORMATS[j]));
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            WRITERS[i].create(baos).writeTag(tag, NbtUtils.MAX_RECURSIVE_DEPTH + 1);
+            Assertions.assertArrayEquals(encoded, baos.toByteArray());
+        }
+
+        // Subclasses of the byte array outputs keep their format, so raw values are still copied
+        Assertions.assertEquals(NbtFormat.BIG_ENDIAN, NBTOutputStream.formatOf(new ByteArrayDataOutput() {}));
+        Assertions.assertEquals(NbtFormat.LITTLE_ENDIAN, NBTOutputStream.formatOf(new LittleEndianByteArrayDataOutput() {}));
+        Assertions.assertEquals(NbtFormat.NETWORK, NBTOutputStream.formatOf(new NetworkByteArrayDataOutput() {}));
+
+        NbtMapBuilder reordered = NbtMap.builder();
+        reordered.put("Inventory", RawNbt.encode(NbtFormat.NETWORK, inventory));
+        reordered.putInt("Health", 20);
+        Assertions.assertEquals(NbtUtils.contentHash(expected), NbtUtils.contentHash(reordered.build()));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> RawNbt.wrap(NbtFormat.NETWORK, NbtType.INT, new byte[1], 1, 1));
+    }
+
+    static byte[] encode(WriterFactory factory, Object tag) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (NBTOutputStream out = factory.create(baos)) {
+            out.writeTag(tag);
+        }
+        return baos.toByteArray();
+    }
+
+    @FunctionalInterface
+    interface ReaderFactory {
+        NBTInputStream create(InputStream stream) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface WriterFactory {
+        NBTOutputStream create(OutputStream stream) throws IOException;
+    }
 }